@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+/**
+ * Limit on the number of tasks running at once that adjusts itself to what the machine can take,
+ * set with {@link Reactor#limitConcurrency(AdaptiveConcurrency)}, so that the executor doesn't have to be sized by guesswork.
+ *
+ * <p>
+ * The tasks that ended recently are looked at as a batch, about one per task allowed to run at once.
+ * Their average run time, compared to the lowest average seen lately, tells how many of the running tasks are
+ * effectively waiting on each other for CPU, disk and the like. While that's only a few, the limit grows by one;
+ * once it's more than a few, the limit is cut by a tenth. Every so often the limit is halved for a batch,
+ * to see what the run times are like with little contention. The limit only grows while the tasks actually use it,
+ * so it stays within the number of tasks that the graph has ready to run.
+ *
+ * <p>
+ * The limit learned is kept from one execution to the next, such as for a {@link ReactorPlan} that is executed
+ * repeatedly. The executor needs to have enough threads for the maximum, for example a cached thread pool.
+ */
+public final class AdaptiveConcurrency {
+    /**
+     * Estimated number of tasks waiting on each other below which the limit grows, and above which it shrinks.
+     */
+    private static final int ALPHA = 3, BETA = 6;
+
+    /**
+     * Minimum number of tasks in a batch.
+     */
+    private static final int MIN_BATCH = 8;
+
+    /**
+     * Number of batches after which the lowest average run time starts to be forgotten,
+     * in case the tasks running at the time are different from the ones the minimum was seen with.
+     * The limit is halved for a batch then, so that the next lowest is measured with little contention.
+     */
+    private static final int BASELINE_BATCHES = 64;
+
+    private final int max;
+
+    private volatile int limit;
+
+    // statistics of the current batch, guarded by 'this'
+    private long total;
+    private int count;
+    private int busiest;
+
+    // lowest average run time in this and the previous period of BASELINE_BATCHES batches, guarded by 'this'
+    private double lowest = Double.MAX_VALUE, previousLowest = Double.MAX_VALUE;
+    private int batches;
+
+    /**
+     * While the limit is halved to measure the run times, the limit to go back to; otherwise 0.
+     */
+    private int probing;
+
+    /**
+     * @param initial
+     *      Number of tasks allowed to run at once to begin with.
+     * @param max
+     *      Never allows more than this number of tasks to run at once.
+     */
+    public AdaptiveConcurrency(int initial, int max) {
+        if (max<1)      throw new IllegalArgumentException("Maximum must be positive: "+max);
+        if (initial<1 || initial>max)
+            throw new IllegalArgumentException("Initial limit must be between 1 and "+max+": "+initial);
+        this.max = max;
+        this.limit = initial;
+    }
+
+    /**
+     * Starts from 4 tasks at once, up to 256.
+     */
+    public AdaptiveConcurrency() {
+        this(4, 256);
+    }
+
+    /**
+     * Number of tasks currently allowed to run at once.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the run time of a task that just ended.
+     *
+     * @param running
+     *      Number of tasks that were running, this one included.
+     */
+    synchronized void sample(long nanos, int running) {
+        total += nanos;
+        count++;
+        busiest = Math.max(busiest, running);
+        int l = limit;
+        if (count<Math.max(MIN_BATCH, l))   return;
+
+        double average = Math.max(1, (double) total/count);
+        boolean saturated = busiest>=l;
+        total = 0;
+        count = 0;
+        busiest = 0;
+
+        if (probing>0) {
+            lowest = average;
+            limit = probing;
+            probing = 0;
+            return;
+        }
+        lowest = Math.min(lowest, average);
+        if (++batches==BASELINE_BATCHES) {
+            batches = 0;
+            previousLowest = lowest;
+            probing = l;
+            limit = Math.max(1, l/2);
+            return;
+        }
+        double baseline = Math.min(lowest, previousLowest);
+
+        // of the tasks running, how many could have run in the time of the others
+        double waiting = l*(1-baseline/average);
+        if (waiting>BETA)
+            l = Math.max(1, Math.min(l-1, (int)(l*0.9)));
+        else if (waiting<ALPHA && saturated)
+            l = Math.min(max, l+1);
+        limit = l;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrency[limit="+limit+", max="+max+"]";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs cheap tasks of one execution back to back on one thread, so that they are submitted to the executor
+ * in batches rather than one by one.
+ *
+ * <p>
+ * The lane is submitted when a task is added to it while it's idle, and then keeps running whatever is
+ * added to it until it runs out. After {@link #BATCH} tasks, it goes back to the executor, so as to let
+ * other work in.
+ */
+final class CheapTaskLane implements Runnable {
+    /**
+     * Maximum number of tasks run per submission.
+     */
+    static final int BATCH = 64;
+
+    private final ExecutionState state;
+
+    private final Queue<Reactor.Node> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True while the lane is submitted or running.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    CheapTaskLane(ExecutionState state) {
+        this.state = state;
+    }
+
+    void add(Reactor.Node n, Executor e) {
+        queue.add(n);
+        if (scheduled.compareAndSet(false, true))
+            e.execute(this);
+    }
+
+    @Override
+    public void run() {
+        for (int i=0; i<BATCH; ) {
+            Reactor.Node n = queue.poll();
+            if (n==null) {
+                scheduled.set(false);
+                // a task added after the poll may have seen the lane still scheduled
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+                    return;
+                continue;
+            }
+            n.run(state);
+            i++;
+        }
+        Executor e = state.executor;
+        if (e!=null)
+            e.execute(this);
+        else
+            scheduled.set(false);   // the execution is over
+    }
+
+    @Override
+    public String toString() {
+        return "Cheap tasks";
+    }
+}
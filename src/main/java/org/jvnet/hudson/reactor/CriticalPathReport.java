@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import org.jvnet.hudson.reactor.TimingListener.Timing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explains what the wall-clock time of an execution went to, from the timings recorded by {@link TimingListener}.
+ *
+ * <p>
+ * The {@linkplain #getPath() critical path} is the chain that actually determined when the execution ended:
+ * starting from the task that ended last, each step goes back to the prerequisite that was attained last.
+ * Time a task spent waiting for a thread is part of its step, since it delayed everything after it just as well.
+ *
+ * <p>
+ * The {@linkplain #getSlack() slack} of a task is how much longer it could have run without delaying
+ * the end of the execution, given the run times of all the tasks and enough threads to run everything
+ * as soon as it's ready. Tasks with no slack are the ones worth making faster.
+ *
+ * <pre>
+ * TimingListener timings = new TimingListener(reactor);
+ * reactor.execute(executor, timings);
+ * LOGGER.info(new CriticalPathReport(timings).toString());
+ * </pre>
+ */
+public class CriticalPathReport {
+    /**
+     * One task on the critical path.
+     */
+    public static final class Step {
+        private final Timing timing;
+        private final Milestone via;
+
+        private Step(Timing timing, Milestone via) {
+            this.timing = timing;
+            this.via = via;
+        }
+
+        public Task getTask() {
+            return timing.getTask();
+        }
+
+        /**
+         * The prerequisite of this task that was attained last, through which the previous step
+         * delayed this one, or null for the first step.
+         */
+        public Milestone getMilestone() {
+            return via;
+        }
+
+        public Duration getQueueWait() {
+            return timing.getQueueWait();
+        }
+
+        public Duration getRunTime() {
+            return timing.getRunTime();
+        }
+
+        @Override
+        public String toString() {
+            return (via!=null ? "-> "+via+" -> " : "")+timing;
+        }
+    }
+
+    private final List<Step> path;
+
+    private final Map<Task,Duration> slack = new IdentityHashMap<>();
+
+    private final Duration total;
+
+    public CriticalPathReport(TimingListener timings) {
+        List<Timing> all = timings.getTimings();
+        // a prerequisite ends before its dependents start, so this is in topological order
+        all.sort(Comparator.comparing((Timing t) -> start(t)).thenComparing(t -> end(t)));
+
+        Map<Milestone,List<Timing>> attainers = new HashMap<>();
+        for (Timing t : all)
+            for (Milestone m : t.getTask().attains())
+                attainers.computeIfAbsent(m, k -> new ArrayList<>()).add(t);
+
+        // earliest the tasks could have ended with unlimited threads
+        Map<Timing,Long> earliestEnd = new IdentityHashMap<>();
+        Map<Timing,List<Timing>> dependents = new IdentityHashMap<>();
+        long longest = 0;
+        for (Timing t : all) {
+            long start = 0;
+            for (Milestone m : t.getTask().requires()) {
+                for (Timing p : attainers.getOrDefault(m, Collections.emptyList())) {
+                    Long e = earliestEnd.get(p);
+                    if (e==null)    continue;   // not a prerequisite after all
+                    start = Math.max(start, e);
+                    dependents.computeIfAbsent(p, k -> new ArrayList<>()).add(t);
+                }
+            }
+            long end = start+t.getRunTime().toNanos();
+            earliestEnd.put(t, end);
+            longest = Math.max(longest, end);
+        }
+
+        // and the latest they could have ended without delaying the end
+        Map<Timing,Long> latestEnd = new IdentityHashMap<>();
+        for (int i=all.size()-1; i>=0; i--) {
+            Timing t = all.get(i);
+            long end = longest;
+            for (Timing d : dependents.getOrDefault(t, Collections.emptyList()))
+                end = Math.min(end, latestEnd.get(d)-d.getRunTime().toNanos());
+            latestEnd.put(t, end);
+            slack.put(t.getTask(), Duration.ofNanos(end-earliestEnd.get(t)));
+        }
+
+        // walk back the chain that actually happened
+        List<Step> steps = new ArrayList<>();
+        Timing last = null;
+        for (Timing t : all)
+            if (last==null || end(t)>end(last))
+                last = t;
+        total = last==null ? Duration.ZERO : last.getCompletedAt();
+        while (last!=null) {
+            Timing latest = null;
+            Milestone via = null;
+            for (Milestone m : last.getTask().requires()) {
+                for (Timing p : attainers.getOrDefault(m, Collections.emptyList())) {
+                    if (end(p)<=start(last) && (latest==null || end(p)>end(latest))) {
+                        latest = p;
+                        via = m;
+                    }
+                }
+            }
+            steps.add(new Step(last, via));
+            last = latest;
+        }
+        Collections.reverse(steps);
+        path = Collections.unmodifiableList(steps);
+    }
+
+    private static long start(Timing t) {
+        return end(t)-t.getRunTime().toNanos();
+    }
+
+    private static long end(Timing t) {
+        return t.getCompletedAt().toNanos();
+    }
+
+    /**
+     * The critical path, from the first task to the one that ended last.
+     */
+    public List<Step> getPath() {
+        return path;
+    }
+
+    /**
+     * When the last task ended, since the {@link TimingListener} was created.
+     */
+    public Duration getTotal() {
+        return total;
+    }
+
+    /**
+     * Slack of each task that ran to the end.
+     */
+    public Map<Task,Duration> getSlack() {
+        return Collections.unmodifiableMap(slack);
+    }
+
+    /**
+     * Slack of the given task, or null if it didn't run to the end.
+     */
+    public Duration getSlack(Task t) {
+        return slack.get(t);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("Critical path of ").append(total.toMillis()).append("ms:");
+        for (Step s : path)
+            b.append("\n  ").append(s);
+        return b.toString();
+    }
+}
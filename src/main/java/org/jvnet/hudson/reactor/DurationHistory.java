@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how long each {@link Task} took, so that the next execution of the same graph can be
+ * {@linkplain Reactor#prioritizeCriticalPath(CostModel) prioritized} with real costs.
+ *
+ * <p>
+ * Tasks are identified by their {@linkplain Task#getDisplayName() display names}; tasks without one aren't tracked.
+ * Durations are kept in microseconds, and each new observation is averaged with the previous one,
+ * so that a single unusually slow run doesn't throw the estimates off. Tasks that haven't run in the last
+ * {@value #MAX_AGE} histories saved in a row are forgotten. Typical usage:
+ *
+ * <pre>
+ * DurationHistory history = DurationHistory.load(file);
+ * reactor.prioritizeCriticalPath(history);
+ * reactor.execute(executor, new ReactorListener.Aggregator(List.of(listener, history)));
+ * history.save(file);
+ * </pre>
+ */
+public class DurationHistory implements ReactorListener, CostModel {
+    private static final int MAGIC = 0x52447548; // "RDuH"
+    private static final int VERSION = 2;
+
+    /**
+     * Number of saved histories in a row that a task can be missing from before it's dropped.
+     */
+    static final int MAX_AGE = 10;
+
+    /**
+     * Display names longer than this are shortened to fit {@link DataOutputStream#writeUTF(String)},
+     * which takes up to three bytes per character.
+     */
+    private static final int MAX_KEY = 1024;
+
+    /**
+     * {@linkplain #key(String) Key} to duration in microseconds.
+     */
+    private final Map<String,Long> durations = new ConcurrentHashMap<>();
+
+    /**
+     * Number of saved histories in a row that each loaded task was missing from.
+     */
+    private final Map<String,Integer> ages;
+
+    /**
+     * Keys of the tasks that ran since this history was loaded.
+     */
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    /**
+     * When each task in progress started, in {@link System#nanoTime()}.
+     */
+    private final Map<Task,Long> started = new ConcurrentHashMap<>();
+
+    /**
+     * What {@link #estimate(Task)} returns for tasks that we haven't seen before.
+     */
+    private final long unknown;
+
+    /**
+     * Creates an empty history.
+     */
+    public DurationHistory() {
+        this.ages = Collections.emptyMap();
+        this.unknown = 1;
+    }
+
+    private DurationHistory(Map<String,Long> durations, Map<String,Integer> ages) {
+        this.durations.putAll(durations);
+        this.ages = ages;
+        this.unknown = median(durations);
+    }
+
+    /**
+     * Reads the history saved by {@link #save(File)}. An empty history is returned if the file doesn't exist.
+     */
+    public static DurationHistory load(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return read(in);
+        } catch (NoSuchFileException e) {
+            return new DurationHistory();
+        }
+    }
+
+    /**
+     * Reads the history written by {@link #write(OutputStream)}.
+     */
+    public static DurationHistory read(InputStream in) throws IOException {
+        DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (din.readInt()!=MAGIC)
+                throw new IOException("Unrecognized task duration history");
+            int version = din.readInt();
+            if (version<1 || version>VERSION)
+                throw new IOException("Unrecognized task duration history version "+version);
+            int size = din.readInt();
+            Map<String,Long> durations = new HashMap<>();
+            Map<String,Integer> ages = new HashMap<>();
+            for (int i=0; i<size; i++) {
+                String key = din.readUTF();
+                durations.put(key, din.readLong());
+                // version 1 didn't keep track of age
+                ages.put(key, version>=2 ? din.readInt() : 0);
+            }
+            return new DurationHistory(durations, ages);
+        } catch (EOFException e) {
+            throw new IOException("Truncated task duration history", e);
+        }
+    }
+
+    /**
+     * Writes this history to the given file, replacing it atomically where the file system allows.
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath()+".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp.toPath())) {
+            write(out);
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes this history in a compact binary form. The stream is flushed but not closed.
+     * Tasks that didn't run since this history was loaded age by one, and are left out once they are too old.
+     */
+    public void write(OutputStream out) throws IOException {
+        Map<String,Long> snapshot = new HashMap<>();
+        Map<String,Integer> age = new HashMap<>();
+        for (Map.Entry<String,Long> e : durations.entrySet()) {
+            String key = e.getKey();
+            int a = seen.contains(key) ? 0 : ages.getOrDefault(key, 0)+1;
+            if (a<MAX_AGE) {
+                snapshot.put(key, e.getValue());
+                age.put(key, a);
+            }
+        }
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        dout.writeInt(snapshot.size());
+        for (Map.Entry<String,Long> e : snapshot.entrySet()) {
+            dout.writeUTF(e.getKey());
+            dout.writeLong(e.getValue());
+            dout.writeInt(age.get(e.getKey()));
+        }
+        dout.flush();
+    }
+
+    /**
+     * Returns the last known duration of the task in microseconds, or null if it's never been seen.
+     */
+    public Long getDuration(String displayName) {
+        return durations.get(key(displayName));
+    }
+
+    /**
+     * Returns the known duration of the task in microseconds. Tasks that haven't been seen before
+     * are assumed to be as expensive as a typical task was when this history was loaded.
+     */
+    @Override
+    public long estimate(Task t) {
+        String name = t.getDisplayName();
+        Long d = name!=null ? durations.get(key(name)) : null;
+        return d!=null ? d : unknown;
+    }
+
+    @Override
+    public void onTaskStarted(Task t) {
+        started.put(t, System.nanoTime());
+    }
+
+    @Override
+    public void onTaskCompleted(Task t) {
+        record(t);
+    }
+
+    @Override
+    public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+        record(t);
+    }
+
+    private void record(Task t) {
+        Long start = started.remove(t);
+        String name = t.getDisplayName();
+        if (start==null || name==null)     return;
+        long d = Math.max(1, (System.nanoTime()-start)/1000);
+        String key = key(name);
+        durations.merge(key, d, (old, now) -> (old+now)/2);
+        seen.add(key);
+    }
+
+    /**
+     * What a task is known by in the history: its display name, or for a very long one,
+     * its beginning followed by a digest of the whole.
+     */
+    private static String key(String name) {
+        if (name.length()<=MAX_KEY)     return name;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            StringBuilder b = new StringBuilder(name.substring(0, MAX_KEY-65)).append('#');
+            for (byte x : digest)
+                b.append(Character.forDigit((x>>4)&0xF, 16)).append(Character.forDigit(x&0xF, 16));
+            return b.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);    // every JVM has SHA-256
+        }
+    }
+
+    private static long median(Map<String,Long> durations) {
+        if (durations.isEmpty())    return 1;
+        long[] all = new long[durations.size()];
+        int i = 0;
+        for (long d : durations.values())
+            all[i++] = d;
+        Arrays.sort(all);
+        return all[all.length/2];
+    }
+}
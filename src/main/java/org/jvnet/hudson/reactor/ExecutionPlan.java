@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frozen form of the DAG in {@link Reactor}, compiled when the execution starts.
+ *
+ * <p>
+ * Nodes are identified by dense int IDs ({@link Reactor.Node#id}), and edges are kept in the
+ * compressed sparse row form: the nodes that depend on node {@code i} are
+ * {@code downstream[downstreamStart[i]]} through {@code downstream[downstreamStart[i+1]-1]}.
+ * Nothing in here changes once compiled.
+ */
+final class ExecutionPlan {
+    /**
+     * Nodes indexed by their IDs.
+     */
+    final Reactor.Node[] nodes;
+
+    /**
+     * Offsets into {@link #downstream}, one per node plus the end marker.
+     */
+    final int[] downstreamStart;
+
+    /**
+     * IDs of the dependent nodes, grouped by their prerequisite.
+     */
+    final int[] downstream;
+
+    /**
+     * Number of distinct prerequisites of each node.
+     */
+    final int[] inDegree;
+
+    /**
+     * IDs of the nodes without prerequisites, which is where every execution starts.
+     */
+    final int[] roots;
+
+    private ExecutionPlan(Reactor.Node[] nodes, int[] downstreamStart, int[] downstream, int[] inDegree) {
+        this.nodes = nodes;
+        this.downstreamStart = downstreamStart;
+        this.downstream = downstream;
+        this.inDegree = inDegree;
+        int n = 0;
+        for (int d : inDegree)
+            if (d==0)
+                n++;
+        roots = new int[n];
+        for (int i=0, j=0; i<inDegree.length; i++)
+            if (inDegree[i]==0)
+                roots[j++] = i;
+    }
+
+    int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Sets {@link Reactor.Node#priority} of every node to the estimated cost of the most expensive path
+     * from that node to the end of the graph, the node itself included. Milestones cost nothing.
+     */
+    void assignCriticalPaths(CostModel cost) {
+        final int n = size();
+
+        // topological order
+        int[] waiting = inDegree.clone();
+        int[] order = new int[n];
+        int head = 0, tail = 0;
+        for (int i=0; i<n; i++)
+            if (waiting[i]==0)
+                order[tail++] = i;
+        while (head<tail) {
+            int from = order[head++];
+            for (int i=downstreamStart[from]; i<downstreamStart[from+1]; i++)
+                if (--waiting[downstream[i]]==0)
+                    order[tail++] = downstream[i];
+        }
+
+        for (Reactor.Node node : nodes)
+            node.priority = node.task!=null ? cost.estimate(node.task) : 0;
+        // walk backward, so that all the dependents are final by the time we get to their prerequisite.
+        // nodes in a cycle never make it into the order, and they are left with their own cost.
+        for (int k=tail-1; k>=0; k--) {
+            int from = order[k];
+            long longest = 0;
+            for (int i=downstreamStart[from]; i<downstreamStart[from+1]; i++)
+                longest = Math.max(longest, nodes[downstream[i]].priority);
+            nodes[from].priority += longest;
+        }
+    }
+
+    /**
+     * Finds the strongly connected components with more than one node, which is to say the cycles,
+     * with Tarjan's algorithm. Recursion is unrolled onto arrays, so that long chains don't overflow the stack.
+     *
+     * @return
+     *      IDs of the nodes in each cycle, in ascending order.
+     */
+    List<int[]> findCycles() {
+        final int n = size();
+        List<int[]> cycles = new ArrayList<>();
+        int[] index = new int[n];   // 1+visit order, or 0 if not visited yet
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+
+        for (int root=0; root<n; root++) {
+            if (index[root]!=0)     continue;
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = downstreamStart[root];
+            index[root] = low[root] = ++counter;
+            stack[sp++] = root;
+            onStack[root] = true;
+
+            while (depth>=0) {
+                int v = callNode[depth];
+                if (callEdge[depth]<downstreamStart[v+1]) {
+                    int w = downstream[callEdge[depth]++];
+                    if (index[w]==0) {
+                        index[w] = low[w] = ++counter;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = downstreamStart[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // done with v
+                if (low[v]==index[v]) {
+                    int top = sp;
+                    do {
+                        onStack[stack[--sp]] = false;
+                    } while (stack[sp]!=v);
+                    if (top-sp>1) {
+                        int[] c = Arrays.copyOfRange(stack, sp, top);
+                        Arrays.sort(c);
+                        cycles.add(c);
+                    }
+                }
+                if (--depth>=0) {
+                    int u = callNode[depth];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Builds a plan.
+     *
+     * @param nodes
+     *      All the nodes, indexed by their IDs.
+     * @param edges
+     *      (prerequisite, dependent) ID pairs, laid out flat. May contain duplicates.
+     * @param edgeCount
+     *      Number of pairs in {@code edges}.
+     */
+    static ExecutionPlan compile(List<Reactor.Node> nodes, int[] edges, int edgeCount) {
+        final int n = nodes.size();
+
+        // bucket the edges by their prerequisite
+        int[] start = new int[n+1];
+        for (int i=0; i<edgeCount; i++)
+            start[edges[2*i]+1]++;
+        for (int i=0; i<n; i++)
+            start[i+1] += start[i];
+        int[] fill = new int[n];
+        int[] targets = new int[edgeCount];
+        for (int i=0; i<edgeCount; i++) {
+            int from = edges[2*i];
+            targets[start[from]+fill[from]++] = edges[2*i+1];
+        }
+
+        // drop duplicate edges in place, so that in-degrees count distinct prerequisites
+        int[] seen = new int[n]; // 1+ID of the last row that listed the node
+        int[] inDegree = new int[n];
+        int[] compactStart = new int[n+1];
+        int size = 0;
+        for (int from=0; from<n; from++) {
+            compactStart[from] = size;
+            for (int i=start[from]; i<start[from+1]; i++) {
+                int to = targets[i];
+                if (seen[to]==from+1)   continue;
+                seen[to] = from+1;
+                targets[size++] = to;
+                inDegree[to]++;
+            }
+        }
+        compactStart[n] = size;
+
+        int[] downstream = size==targets.length ? targets : Arrays.copyOf(targets, size);
+        return new ExecutionPlan(nodes.toArray(new Reactor.Node[0]), compactStart, downstream, inDegree);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Mutable state of one execution, kept apart from the {@link ExecutionPlan} so that a plan can be
+ * executed any number of times, concurrently even.
+ *
+ * <p>
+ * Each node has a counter. A non-negative value is the number of prerequisites that the node is still waiting for.
+ * Once it drops to zero, the node is claimed for execution by moving it to {@link #SUBMITTED},
+ * then to {@link #RUNNING} when a thread picks it up, and eventually to {@link #DONE}. When the execution
+ * fails fatally, the tasks that haven't started running are moved to {@link #SKIPPED} instead.
+ *
+ * <p>
+ * Counters are stored in fixed-size chunks, so that nodes added during the execution get their slots
+ * without moving the counters that other threads are updating.
+ */
+final class ExecutionState {
+    static final int SUBMITTED = -1;
+    static final int DONE = -2;
+    static final int RUNNING = -3;
+    static final int SKIPPED = -4;
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1<<CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE-1;
+
+    /**
+     * Only ever replaced by a longer copy, and only by {@link #grow(int)}.
+     */
+    private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+
+    /**
+     * Dependents of a node that were added after the plan was compiled, keyed by the ID of the prerequisite.
+     */
+    private final Map<Integer,LateDownstream> late = new ConcurrentHashMap<>();
+
+    /**
+     * Set before anything goes into {@link #late}, so that completing nodes can skip the lookup
+     * when no edges were ever added late.
+     */
+    private volatile boolean hasLate;
+
+    /**
+     * Used for executing tasks. Set to null once the execution is over, so that nothing more is submitted.
+     */
+    volatile Executor executor;
+
+    volatile ReactorListener listener;
+
+    /**
+     * Number of tasks pending execution
+     */
+    final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * RuntimeException or Error that indicates a fatal failure in a task
+     */
+    volatile TunnelException fatal;
+
+    /**
+     * Completed when the execution is over, one way or the other.
+     */
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    /**
+     * Ready tasks waiting for an executor thread, when dispatching by critical path, or else null.
+     * Each of them has a matching {@link #runNext} submitted to the executor.
+     */
+    final PriorityBlockingQueue<Reactor.Node> ready;
+
+    Runnable runNext;
+
+    /**
+     * When each task was handed to the executor, in {@link System#nanoTime()}.
+     * Only kept if {@link ReactorEvents.TaskExecution} was enabled when the execution started,
+     * and only for the nodes in the plan.
+     */
+    final long[] readyAt;
+
+    /**
+     * Permits of the resource tags that have a limit.
+     */
+    final Map<String,ResourceLimit> limits;
+
+    /**
+     * Permits of the {@link AdaptiveConcurrency} limit that all the tasks are subject to, or null if there is none.
+     */
+    final ResourceLimit running;
+
+    /**
+     * Lanes that {@linkplain Reactor.Node#cheap cheap} tasks are run in, or null if they aren't coalesced.
+     */
+    CheapTaskLane[] lanes;
+
+    /**
+     * Threads running the tasks, to be interrupted if the execution fails, or null if they aren't.
+     */
+    Map<Reactor.Node,Thread> inFlight;
+
+    /**
+     * Set once, by whoever finishes the execution.
+     */
+    final AtomicBoolean finished = new AtomicBoolean();
+
+    ExecutionState(int[] initial, Executor executor, ReactorListener listener, PriorityBlockingQueue<Reactor.Node> ready,
+                   Map<String,ResourceLimit> limits, ResourceLimit running) {
+        this.executor = executor;
+        this.listener = listener;
+        this.ready = ready;
+        this.limits = limits;
+        this.running = running;
+        this.readyAt = ReactorEvents.isRecording() && new ReactorEvents.TaskExecution().isEnabled() ? new long[initial.length] : null;
+        grow(initial.length);
+        AtomicIntegerArray[] c = chunks;
+        for (int i=0; i<initial.length; i++)
+            c[i>>>CHUNK_BITS].set(i&CHUNK_MASK, initial[i]);
+    }
+
+    /**
+     * Makes room for nodes with IDs up to {@code size}. New slots start at zero.
+     * Callers must serialize calls to this method.
+     */
+    void grow(int size) {
+        AtomicIntegerArray[] c = chunks;
+        int n = (size+CHUNK_MASK)>>>CHUNK_BITS;
+        if (n<=c.length)    return;
+        c = Arrays.copyOf(c, Math.max(n, c.length*2));
+        for (int i=0; i<c.length; i++)
+            if (c[i]==null)
+                c[i] = new AtomicIntegerArray(CHUNK_SIZE);
+        chunks = c;
+    }
+
+    private AtomicIntegerArray chunk(int id) {
+        return chunks[id>>>CHUNK_BITS];
+    }
+
+    int get(int id) {
+        return chunk(id).get(id&CHUNK_MASK);
+    }
+
+    void set(int id, int value) {
+        chunk(id).set(id&CHUNK_MASK, value);
+    }
+
+    int decrementAndGet(int id) {
+        return chunk(id).decrementAndGet(id&CHUNK_MASK);
+    }
+
+    boolean compareAndSet(int id, int expect, int update) {
+        return chunk(id).compareAndSet(id&CHUNK_MASK, expect, update);
+    }
+
+    /**
+     * Makes the node wait for one more prerequisite, unless it's already been claimed for execution.
+     */
+    private boolean addPrerequisite(int id) {
+        AtomicIntegerArray c = chunk(id);
+        int i = id&CHUNK_MASK;
+        for (int v=c.get(i); v>=0; v=c.get(i))
+            if (c.compareAndSet(i, v, v+1))
+                return true;
+        return false;
+    }
+
+    /**
+     * Records a dependency that wasn't part of the compiled plan.
+     * Nothing happens if {@code from} has already completed, or {@code to} has already been claimed.
+     */
+    void addEdge(Reactor.Node from, Reactor.Node to) {
+        hasLate = true;
+        LateDownstream d = late.computeIfAbsent(from.id, k -> new LateDownstream());
+        synchronized (d) {
+            // the completion of 'from' sets DONE before it collects late dependents under this lock,
+            // so either we see DONE here, or it sees our addition
+            if (d.closed || get(from.id)==DONE)   return;
+            if (!addPrerequisite(to.id))            return;
+            d.add(to);
+        }
+    }
+
+    /**
+     * Returns the dependents of the given node that were added after the plan was compiled.
+     * Must be called after the node is marked {@link #DONE}.
+     */
+    Reactor.Node[] takeLateDownstream(int id) {
+        if (!hasLate)   return NO_NODES;
+        LateDownstream d = late.remove(id);
+        if (d==null)    return NO_NODES;
+        synchronized (d) {
+            d.closed = true;
+            return Arrays.copyOf(d.nodes, d.size);
+        }
+    }
+
+    private static final class LateDownstream {
+        private Reactor.Node[] nodes = new Reactor.Node[2];
+        private int size;
+        private boolean closed;
+
+        private void add(Reactor.Node n) {
+            if (size==nodes.length)
+                nodes = Arrays.copyOf(nodes, size*2);
+            nodes[size++] = n;
+        }
+    }
+
+    private static final Reactor.Node[] NO_NODES = new Reactor.Node[0];
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Problems in the graph of a {@link Reactor}, found by {@link Reactor#validate()}.
+ */
+public final class GraphValidation {
+    private final List<List<String>> cycles;
+    private final List<Milestone> unattained;
+
+    GraphValidation(List<List<String>> cycles, List<Milestone> unattained) {
+        this.cycles = Collections.unmodifiableList(cycles);
+        this.unattained = Collections.unmodifiableList(unattained);
+    }
+
+    /**
+     * Groups of tasks and milestones that depend on each other in a circle.
+     * None of them would ever run, and neither would anything that requires them.
+     * Each group is listed as the {@link Task#getDisplayName() display names} of its tasks
+     * and the names of its milestones.
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Milestones that some task requires but no task attains. They are considered attained from the start,
+     * which is fine if that's intended, but usually means that a task is missing.
+     */
+    public List<Milestone> getUnattainedMilestones() {
+        return unattained;
+    }
+
+    /**
+     * True if there are no cycles. Unattained milestones don't count, as the execution still completes.
+     */
+    public boolean isValid() {
+        return cycles.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        for (List<String> c : cycles)
+            b.append("Cycle: ").append(String.join(", ", c)).append('\n');
+        for (Milestone m : unattained)
+            b.append("Required but never attained: ").append(m).append('\n');
+        return b.length()==0 ? "No problems" : b.toString().trim();
+    }
+}
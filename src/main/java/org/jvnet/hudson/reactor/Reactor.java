@@ -26,16 +26,27 @@ package org.jvnet.hudson.reactor;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Executes a set of {@link Task}s that dependend on each other.
@@ -50,102 +61,677 @@ public class Reactor implements Iterable<Reactor.Node> {
     /**
      * {@link Node}s created from {@link Task}.
      */
-    private final Set<Node> tasks = new HashSet<>();
+    private final List<Node> tasks = new ArrayList<>();
 
     /**
-     * Number of tasks pending execution
+     * All the {@link Node}s, indexed by {@link Node#id}. Guarded by 'this'.
      */
-    private int pending = 0;
+    private final List<Node> nodes = new ArrayList<>();
 
     /**
-     * RuntimeException or Error that indicates a fatal failure in a task
+     * Edges added before the execution starts, as flattened (prerequisite, dependent) ID pairs.
+     * Guarded by 'this', and compiled into {@link #plan} when the execution starts.
      */
-    private TunnelException fatal;
+    private int[] edges = new int[64];
+    private int edgeCount;
+
+    /**
+     * Frozen DAG that the execution runs off. Set when the execution starts, or when compiled into a {@link ReactorPlan}.
+     */
+    private volatile ExecutionPlan plan;
+
+    /**
+     * The execution started by {@link #executeAsync(Executor, ReactorListener)}.
+     * Edges added after {@link #plan} is compiled go in here. Executions of a {@link ReactorPlan} aren't kept here.
+     */
+    private volatile ExecutionState state;
 
     /**
      * Milestones as nodes in DAG. Guarded by 'this'.
      */
     private final Map<Milestone,Node> milestones = new HashMap<>();
 
-    private Executor executor;
+    private boolean executed = false;
+
+    /**
+     * Set once the graph is compiled into a {@link ReactorPlan}, after which it can no longer change.
+     */
+    private boolean frozen;
 
-    private ReactorListener listener = ReactorListener.NOOP;
+    /**
+     * While builders are still discovering tasks during the execution, the node of {@link #DISCOVERY_COMPLETE},
+     * which every other milestone waits for. Guarded by 'this'.
+     */
+    private Node discovery;
 
-    private boolean executed = false;
+    /**
+     * Attained when all the builders given to
+     * {@link #executeAsync(Executor, ReactorListener, Collection, Executor)} have discovered their tasks.
+     * No other milestone is attained before that, since tasks that attain it might still be on their way.
+     * Tasks can also require this explicitly.
+     */
+    public static final Milestone DISCOVERY_COMPLETE = new Milestone() {
+        @Override
+        public String toString() {
+            return "Discovery complete";
+        }
+    };
+
+    /**
+     * If non-null, ready tasks are dispatched in the order of their {@link Node#priority} computed with this.
+     */
+    private CostModel criticalPath;
+
+    /**
+     * Maximum number of tasks running at once, for each resource tag that has one.
+     */
+    private final Map<String,Integer> resourceLimits = new HashMap<>();
+
+    /**
+     * If non-null, limits the number of tasks running at once.
+     */
+    private AdaptiveConcurrency adaptiveConcurrency;
 
     /**
-     * A node in DAG.
+     * If non-null, tasks estimated by this to cost no more than {@link #cheapThreshold} are run in batches.
+     */
+    private CostModel cheapCost;
+    private long cheapThreshold;
+
+    /**
+     * Maximum number of tasks that a thread runs in a row without going through the executor.
+     *
+     * @see #fuseChains(int)
+     */
+    private volatile int chainDepth;
+
+    /**
+     * If non-null, watches the executions.
+     */
+    private volatile Watchdog watchdog;
+
+    private boolean interruptOnFailure;
+
+    /**
+     * If non-null, idempotent tasks that take too long get a second copy.
+     */
+    private volatile Speculation speculation;
+
+    /**
+     * A node in DAG, representing either a {@link Task} or a {@link Milestone}.
+     *
+     * <p>
+     * Edges and counters live in {@link ExecutionPlan} and {@link ExecutionState}, indexed by {@link #id},
+     * so that a node itself is just a few words. Only task nodes are submitted to the {@link Executor};
+     * milestones are attained inline by the thread that completes their last prerequisite.
      */
     final class Node implements Runnable {
         /**
-         * All of them have to run before this task can be executed.
+         * Dense ID, in the order nodes are created.
          */
-        private final Set<Node> prerequisites = new HashSet<>();
+        final int id;
 
         /**
-         * What to run
+         * What to run, or null if this node is a milestone.
          */
-        private final Runnable task;
+        final Task task;
 
         /**
-         * These nodes have this node in {@link #prerequisites}.
+         * What to attain, or null if this node is a task.
          */
-        private final Set<Node> downstream = new HashSet<>();
+        final Milestone milestone;
 
-        private boolean submitted;
-        private boolean done;
+        /**
+         * When dispatching by {@linkplain #prioritizeCriticalPath(CostModel) critical path},
+         * the estimated cost of the most expensive path from this node to the end of the graph.
+         * Written before the node becomes ready.
+         */
+        long priority;
+
+        /**
+         * True if the task is cheap enough to be run in a batch with others.
+         *
+         * @see #coalesceCheapTasks(CostModel, long)
+         */
+        boolean cheap;
 
-        private Node(Runnable task) {
+        /**
+         * {@linkplain ResourceTagged Resource tags} of the task, sorted, or null if it has none.
+         */
+        final String[] resources;
+
+        /**
+         * Must be called while holding the {@link Reactor} monitor.
+         */
+        private Node(Task task, Milestone milestone) {
+            this.id = nodes.size();
             this.task = task;
+            this.milestone = milestone;
+            this.resources = task instanceof ResourceTagged ? sortedTags((ResourceTagged) task) : null;
+            nodes.add(this);
         }
 
         private void addPrerequisite(Node n) {
-            prerequisites.add(n);
-            n.downstream.add(this);
+            addEdge(n, this);
+        }
+
+        @Override
+        public void run() {
+            run(state);
         }
 
         /**
-         * Can this node be executed?
+         * Runs the task as a part of the given execution, followed by the chain of tasks that it leads to,
+         * if {@linkplain #fuseChains(int) fused}.
          */
-        private boolean canRun() {
-            if (submitted || executor==null)  return false;
-            for (Node n : prerequisites)
-                if (!n.done)        return false;
-            return true;
+        void run(ExecutionState s) {
+            Node n = this;
+            for (int links=0; n!=null; links++)
+                n = n.runOne(s, links<chainDepth);
         }
 
-        @Override
-        public void run() {
+        /**
+         * @param fuse
+         *      If true, the first task that this one makes ready is returned instead of submitted.
+         * @return
+         *      the task to run next on this thread, or null.
+         */
+        private Node runOne(ExecutionState s, boolean fuse) {
+            // in flight before it's claimed, or a failure in between would neither skip it nor interrupt it
+            Map<Node,Thread> inFlight = s.inFlight;
+            if (inFlight!=null)
+                inFlight.put(this, Thread.currentThread());
+            if (!s.compareAndSet(id, ExecutionState.SUBMITTED, ExecutionState.RUNNING)) {
+                // the execution has failed in the mean time, and may have interrupted this thread for it
+                if (inFlight!=null) {
+                    inFlight.remove(this);
+                    Thread.interrupted();
+                }
+                return null;
+            }
+            ReactorEvents.TaskExecution event = null;
+            long started = 0;
+            if (ReactorEvents.isRecording()) {
+                event = new ReactorEvents.TaskExecution();
+                started = System.nanoTime();
+                event.begin();
+            }
+            ResourceLimit running = s.running;
+            long t0 = running!=null ? System.nanoTime() : 0;
+            Watchdog.Watch watch = watchdog!=null ? watchdog.start(Reactor.this, s, this) : null;
+            Speculation.Race race = null;
+            Speculation sp = speculation;
+            if (sp!=null && task instanceof Idempotent) {
+                final Speculation.Race r = race = new Speculation.Race(watch);
+                r.timer = sp.schedule(task, () -> launchCopy(s, this, r));
+            }
+            String outcome;
             try {
-                task.run();
+                outcome = invoke(s, task, watch, race) ? "completed" : "failed";
             } catch(TunnelException t) {
-                fatal = t;
-            } finally {
-                done = true;
+                s.fatal = t;
+                outcome = "fatal";
             }
-
-            // trigger downstream
-            synchronized (Reactor.this) {
-                if (fatal==null) {
-                    for (Node n : downstream)
-                        n.runIfPossible();
+            if (inFlight!=null) {
+                inFlight.remove(this);
+                if (s.fatal!=null)
+                    Thread.interrupted();   // in case the failure interrupted it, don't carry that over to the next job
+            }
+            if (!claim(watch, race)) {
+                // the watchdog or the copy has already ended it and moved on
+                if (event!=null) {
+                    event.end();
+                    event.displayName = task.getDisplayName();
+                    event.outcome = race!=null && race.isWonBy(Speculation.Race.COPY) ? "superseded" : "timed out";
+                    event.commit();
                 }
-                pending--;
-                Reactor.this.notify();
+                return null;
             }
+            if (running!=null)
+                adaptiveConcurrency.sample(System.nanoTime()-t0, running.used());
+            if (resources!=null || running!=null)
+                release(s, this, permits(s, this));
+            if (event!=null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    long readyAt = s.readyAt!=null && id<s.readyAt.length ? s.readyAt[id] : 0;
+                    event.displayName = task.getDisplayName();
+                    event.fatal = task.failureIsFatal();
+                    event.queueDelay = readyAt==0 ? 0 : started-readyAt;
+                    event.outcome = outcome;
+                    event.commit();
+                }
+            }
+            Node next = null;
+            if (fuse) {
+                Continuation c = CONTINUATION.get();
+                c.state = s;
+                try {
+                    completed(s, this);
+                } finally {
+                    next = c.next;
+                    c.next = null;
+                    c.state = null;
+                }
+            } else {
+                completed(s, this);
+            }
+            settle(s);
+            return next;
+        }
+
+        @Override
+        public String toString() {
+            return task!=null ? "Task:"+task.getDisplayName() : "Milestone:"+milestone;
+        }
+    }
+
+    /**
+     * Where a thread finishing a task keeps the next task in the chain, while it's looking for tasks to make ready.
+     */
+    private static final class Continuation {
+        ExecutionState state;
+        Node next;
+    }
+
+    private static final ThreadLocal<Continuation> CONTINUATION = ThreadLocal.withInitial(Continuation::new);
+
+    /**
+     * A task submitted by an execution of a {@link ReactorPlan}. Any number of them can be running
+     * the same plan, so unlike {@link #state}, the execution has to be carried along.
+     */
+    private static final class Job implements Runnable {
+        private final ExecutionState state;
+        private final Node node;
+
+        Job(ExecutionState state, Node node) {
+            this.state = state;
+            this.node = node;
         }
 
-        public void runIfPossible() {
-            if (!canRun())  return;
-            pending++;
-            submitted = true;
-            executor.execute(this);
+        @Override
+        public void run() {
+            node.run(state);
         }
 
         @Override
         public String toString() {
-            return task.toString();
+            return node.toString();
+        }
+    }
+
+    /**
+     * Records that {@code to} requires {@code from}. Must be called while holding the monitor.
+     */
+    private void addEdge(Node from, Node to) {
+        ExecutionState s = state;
+        if (s!=null) {
+            // the plan is already frozen
+            s.addEdge(from, to);
+            return;
+        }
+        if (2*edgeCount+2>edges.length)
+            edges = Arrays.copyOf(edges, edges.length*2);
+        edges[2*edgeCount] = from.id;
+        edges[2*edgeCount+1] = to.id;
+        edgeCount++;
+    }
+
+    /**
+     * Marks the node as done and triggers its downstream.
+     * This runs without the {@link Reactor} monitor.
+     */
+    private void completed(ExecutionState s, Node n) {
+        s.set(n.id, ExecutionState.DONE);
+
+        // trigger downstream
+        if (s.fatal==null) {
+            ExecutionPlan p = plan;
+            if (n.id<p.size()) {
+                for (int i=p.downstreamStart[n.id], end=p.downstreamStart[n.id+1]; i<end; i++)
+                    prerequisiteDone(s, p.nodes[p.downstream[i]]);
+            }
+            for (Node d : s.takeLateDownstream(n.id))
+                prerequisiteDone(s, d);
+        }
+    }
+
+    private void prerequisiteDone(ExecutionState s, Node n) {
+        if (s.decrementAndGet(n.id)==0)
+            runIfPossible(s, n);
+    }
+
+    /**
+     * Submits the node if it's no longer waiting for anything and nobody else has submitted it yet.
+     * Milestones don't go through the executor; they are attained right here.
+     */
+    private void runIfPossible(ExecutionState s, Node n) {
+        Executor e = s.executor;
+        if (e==null || !s.compareAndSet(n.id, 0, ExecutionState.SUBMITTED))    return;
+        if (n.milestone!=null) {
+            attain(s, n);
+            return;
         }
+        if (!ready(s, n))   return;
+        s.pending.incrementAndGet();
+        int got = acquire(s, n);
+        if (got<0)
+            submit(s, n);
+        else
+            release(s, n, got);     // wait without holding on to anything
+    }
+
+    private void submit(ExecutionState s, Node n) {
+        Executor e = s.executor;
+        if (e==null)    return;
+        if (chainDepth>0) {
+            Continuation c = CONTINUATION.get();
+            if (c.state==s && c.next==null) {
+                // the thread that made it ready runs it next
+                c.next = n;
+                return;
+            }
+        }
+        CheapTaskLane[] lanes = s.lanes;
+        if (n.cheap && lanes!=null) {
+            lanes[n.id%lanes.length].add(n, e);
+            return;
+        }
+        PriorityBlockingQueue<Node> q = s.ready;
+        if (q!=null) {
+            // whichever thread picks this up runs the most urgent task ready at that point
+            q.add(n);
+            e.execute(s.runNext);
+        } else {
+            e.execute(s==state ? n : new Job(s, n));
+        }
+    }
+
+    private static String[] sortedTags(ResourceTagged t) {
+        Collection<String> tags = t.getResourceTags();
+        if (tags==null || tags.isEmpty())   return null;
+        // always taken in the same order, though nobody waits while holding any
+        return new TreeSet<>(tags).toArray(new String[0]);
+    }
+
+    /**
+     * Number of limits that apply to the task: one per resource tag, then the overall one if there is one.
+     */
+    private static int permits(ExecutionState s, Node n) {
+        return (n.resources!=null ? n.resources.length : 0)+(s.running!=null ? 1 : 0);
+    }
+
+    /**
+     * The {@code i}th limit that applies to the task, if it has one.
+     */
+    private static ResourceLimit limit(ExecutionState s, Node n, int i) {
+        return n.resources!=null && i<n.resources.length ? s.limits.get(n.resources[i]) : s.running;
+    }
+
+    /**
+     * Takes the permits that the task needs to run.
+     *
+     * @return
+     *      -1 if the task got them all, or else the number of permits that it got before it had to wait.
+     *      The task is then in the queue of the next one, and the permits it got must be given back.
+     */
+    private static int acquire(ExecutionState s, Node n) {
+        if (s.limits.isEmpty() && s.running==null)  return -1;
+        int count = permits(s, n);
+        for (int i=0; i<count; i++) {
+            ResourceLimit l = limit(s, n, i);
+            if (l!=null && !l.tryAcquire(n))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Gives back the first {@code count} permits of the node, and lets the tasks waiting for them try again.
+     * Done in a loop rather than recursively, as a task that tries again may have to give back permits of its own.
+     */
+    private void release(ExecutionState s, Node n, int count) {
+        if (s.limits.isEmpty() && s.running==null)  return;
+        List<Node> woken = new ArrayList<>();
+        giveBack(s, n, count, woken);
+        for (int i=0; i<woken.size(); i++) {
+            Node w = woken.get(i);
+            int got = acquire(s, w);
+            if (got<0)
+                submit(s, w);
+            else
+                giveBack(s, w, got, woken);
+        }
+    }
+
+    private static void giveBack(ExecutionState s, Node n, int count, List<Node> woken) {
+        for (int i=0; i<count; i++) {
+            ResourceLimit l = limit(s, n, i);
+            if (l!=null)
+                l.release(woken);
+        }
+    }
+
+    /**
+     * Tells the listener that the task is about to be submitted.
+     *
+     * @return
+     *      false if the listener failed, which is fatal.
+     */
+    private boolean ready(ExecutionState s, Node n) {
+        if (s.readyAt!=null && n.id<s.readyAt.length)
+            s.readyAt[n.id] = System.nanoTime();
+        try {
+            s.listener.onTaskReady(n.task);
+            return true;
+        } catch(Throwable x) {
+            s.fatal = new TunnelException(x);
+            finish(s);
+            return false;
+        }
+    }
+
+    private void attain(ExecutionState s, Node n) {
+        ReactorEvents.MilestoneAttained event = null;
+        if (ReactorEvents.isRecording()) {
+            event = new ReactorEvents.MilestoneAttained();
+            event.begin();
+        }
+        try {
+            s.listener.onAttained(n.milestone);
+        } catch(Throwable x) {
+            s.fatal = new TunnelException(x);
+            finish(s);
+        }
+        if (event!=null) {
+            event.milestone = String.valueOf(n.milestone);
+            event.commit();
+        }
+        completed(s, n);
+    }
+
+    /**
+     * Drops one count of pending work, and finishes the execution if that was the last of it
+     * or if something has failed fatally.
+     */
+    private void settle(ExecutionState s) {
+        if (s.pending.decrementAndGet()==0 || s.fatal!=null)
+            finish(s);
+    }
+
+    private void finish(ExecutionState s) {
+        if (!s.finished.compareAndSet(false, true))     return;
+        TunnelException f = s.fatal;
+        // avoid memory leak
+        s.executor = null;
+        s.listener = ReactorListener.NOOP;
+        if (f!=null)
+            s.done.completeExceptionally(new ReactorException(f.getCause(), cancel(s)));
+        else
+            s.done.complete(null);
+    }
+
+    /**
+     * Keeps the tasks of a failed execution that haven't started from ever starting,
+     * and interrupts the ones running if asked to.
+     *
+     * @return
+     *      the tasks that won't run.
+     */
+    private List<Task> cancel(ExecutionState s) {
+        PriorityBlockingQueue<Node> q = s.ready;
+        if (q!=null)
+            q.clear();
+
+        Node[] all;
+        if (s==state) {
+            synchronized (this) {
+                all = nodes.toArray(new Node[0]);
+            }
+        } else {
+            all = plan.nodes;
+        }
+        List<Task> skipped = new ArrayList<>();
+        for (Node n : all) {
+            if (n.task==null)   continue;
+            while (true) {
+                // whatever is submitted but not yet running is dropped when a thread gets to it
+                int v = s.get(n.id);
+                if (v==ExecutionState.RUNNING || v==ExecutionState.DONE || v==ExecutionState.SKIPPED)
+                    break;
+                if (s.compareAndSet(n.id, v, ExecutionState.SKIPPED)) {
+                    skipped.add(n.task);
+                    break;
+                }
+            }
+        }
+
+        Map<Node,Thread> inFlight = s.inFlight;
+        if (inFlight!=null) {
+            for (Node n : inFlight.keySet()) {
+                inFlight.computeIfPresent(n, (k, t) -> {
+                    t.interrupt();
+                    return t;
+                });
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Runs a task, reporting the outcome to the listener.
+     *
+     * @return
+     *      false if the task failed, but not fatally.
+     * @throws TunnelException
+     *      if the task failed fatally.
+     */
+    private boolean invoke(ExecutionState s, Task t, Watchdog.Watch watch, Speculation.Race race) {
+        try {
+            s.listener.onTaskStarted(t);
+            runTask(t);
+            if (!claim(watch, race))    return false;
+            s.listener.onTaskCompleted(t);
+            return true;
+        } catch (Throwable x) {
+            if (!claim(watch, race))    return false;
+            failed(s, t, x);
+            return false;
+        }
+    }
+
+    /**
+     * Called by the thread that ran a task to see if its outcome counts, as opposed to the watchdog
+     * or a speculative copy having already ended the task. Can be called any number of times.
+     */
+    private static boolean claim(Watchdog.Watch watch, Speculation.Race race) {
+        boolean won = true;
+        if (race!=null) {
+            won = race.decide(Speculation.Race.ORIGINAL);
+            race.originalDone(won);
+        }
+        // the watchdog is told either way, to stop watching
+        return (watch==null || watch.end()) && won;
+    }
+
+    /**
+     * Runs a copy of a task that's taking too long, if it hasn't finished by the time a thread is available.
+     */
+    private void launchCopy(final ExecutionState s, final Node n, final Speculation.Race race) {
+        Executor e = s.executor;
+        if (e==null || race.isDecided())    return;
+        e.execute(() -> {
+            if (s.fatal!=null || !race.startCopy())     return;
+            Throwable failure = null;
+            try {
+                runTask(n.task);
+            } catch (Throwable x) {
+                failure = x;
+            }
+            boolean won = race.decide(Speculation.Race.COPY);
+            race.copyDone(won);
+            if (won && (race.watch==null || race.watch.claim()))
+                finishFor(s, n, failure);
+        });
+    }
+
+    /**
+     * Reports the failure of a task.
+     *
+     * @throws TunnelException
+     *      if the failure is fatal, or the listener failed.
+     */
+    private static void failed(ExecutionState s, Task t, Throwable x) {
+        boolean fatal = t.failureIsFatal();
+        TunnelException te = null;
+        try {
+            s.listener.onTaskFailed(t, x, fatal);
+        } catch(Throwable x2) {
+            te = new TunnelException(x2);
+            x2.addSuppressed(x);
+        }
+        if (te == null) {
+            te = new TunnelException(x);
+        }
+        if (fatal)
+            throw te;
+    }
+
+    /**
+     * Ends a task that's still running on another thread, and goes on as if it had.
+     * Called by the {@link Watchdog} to fail it, and by the {@linkplain Speculation speculative copy} that finished first.
+     * The listener hears about it on the calling thread, not on the one the task started on.
+     *
+     * @param failure
+     *      null if the task is to be reported as completed.
+     */
+    void finishFor(ExecutionState s, Node n, Throwable failure) {
+        if (failure==null) {
+            try {
+                s.listener.onTaskCompleted(n.task);
+            } catch (Throwable x) {
+                failure = x;
+            }
+        }
+        if (failure!=null) {
+            try {
+                failed(s, n.task, failure);
+            } catch (TunnelException t) {
+                s.fatal = t;
+            }
+        }
+        if (n.resources!=null || s.running!=null)
+            release(s, n, permits(s, n));
+        completed(s, n);
+        settle(s);
+    }
+
+    /**
+     * Called by the {@link Watchdog} to fail an execution that's past its deadline.
+     */
+    void expired(ExecutionState s, TimeoutException x) {
+        s.fatal = new TunnelException(x);
+        finish(s);
     }
 
 
@@ -159,6 +745,64 @@ public class Reactor implements Iterable<Reactor.Node> {
         this(Arrays.asList(builders));
     }
 
+    /**
+     * Discovers the tasks of all the builders at once, using the given executor.
+     *
+     * <p>
+     * This helps when discovery is slow, for example because builders scan for classes or read files.
+     * Tasks are still added in the order of the builders, so the resulting graph is the same as with
+     * {@link #Reactor(Collection)}, but builders must not depend on each other having run before them.
+     *
+     * @param discovery
+     *      Runs {@link TaskBuilder#discoverTasks(Reactor)} of each builder.
+     * @throws IOException
+     *      if any of the builders fails. When more than one does, the failure of the first one
+     *      in the collection is thrown, with the others suppressed.
+     */
+    public Reactor(Collection<? extends TaskBuilder> builders, Executor discovery) throws IOException {
+        List<CompletableFuture<List<Task>>> discovered = new ArrayList<>(builders.size());
+        for (TaskBuilder b : builders)
+            discovered.add(CompletableFuture.supplyAsync(() -> discover(b), discovery));
+
+        Throwable failure = null;
+        for (CompletableFuture<List<Task>> f : discovered) {
+            try {
+                List<Task> found = f.get();
+                if (failure==null)
+                    addAll(found);
+            } catch (ExecutionException e) {
+                Throwable x = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+                if (failure==null)
+                    failure = x;
+                else
+                    failure.addSuppressed(x);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (IOException) new InterruptedIOException("Interrupted while discovering tasks").initCause(e);
+            }
+        }
+        if (failure instanceof IOException)
+            throw (IOException) failure;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+
+    /**
+     * Collects the tasks of a builder, so that lazy {@link Iterable}s are also walked in parallel.
+     */
+    private List<Task> discover(TaskBuilder b) {
+        try {
+            List<Task> r = new ArrayList<>();
+            for (Task t : b.discoverTasks(this))
+                r.add(t);
+            return r;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     @Override
     public Iterator<Node> iterator() {
         return tasks.iterator();
@@ -175,24 +819,204 @@ public class Reactor implements Iterable<Reactor.Node> {
     private synchronized Node milestone(final Milestone m) {
         Node n = milestones.get(m);
         if (n==null) {
-            milestones.put(m,n=new Node(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        listener.onAttained(m);
-                    } catch(Throwable x) {
-                        throw new TunnelException(x);
-                    }
-                }
-                @Override
-                public String toString() {
-                    return "Milestone:"+m.toString();
-                }
-            }));
+            milestones.put(m,n=new Node(null,m));
+            ExecutionState s = state;
+            if (s!=null)
+                s.grow(nodes.size());
+            if (discovery!=null)
+                addEdge(discovery, n);
         }
         return n;
     }
 
+    /**
+     * Dispatches ready tasks longest remaining path first, instead of in no particular order.
+     *
+     * <p>
+     * When the execution starts, every node is given the estimated cost of the most expensive chain of tasks
+     * from it to the end of the graph, and whenever an executor thread becomes available, it picks the ready task
+     * with the largest one. This gets long dependency chains going early, which tends to shorten the overall
+     * execution when there are more ready tasks than threads. Tasks added during the execution are prioritized
+     * by what is known about their dependents at that point.
+     *
+     * <p>
+     * Must be called before {@link #execute(Executor, ReactorListener)}.
+     *
+     * @param cost
+     *      How expensive each task is. {@link CostModel#UNIT} counts tasks. Null to go back to the default.
+     */
+    public synchronized void prioritizeCriticalPath(CostModel cost) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.criticalPath = cost;
+    }
+
+    /**
+     * Keeps more than the given number of tasks with the given {@linkplain ResourceTagged resource tag}
+     * from running at once, for example to avoid thrashing the disk, without limiting the other tasks.
+     *
+     * <p>
+     * A task that is ready to run but can't get a permit for one of its tags doesn't take up a thread;
+     * it waits on the side until a task with the tag finishes. Every execution of a {@link ReactorPlan}
+     * has permits of its own.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     *
+     * @param max
+     *      At least 1.
+     */
+    public synchronized void limitConcurrency(String tag, int max) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        if (max<1)      throw new IllegalArgumentException("Limit of "+tag+" must be positive: "+max);
+        resourceLimits.put(tag, max);
+    }
+
+    /**
+     * Runs tasks that cost next to nothing back to back in batches, so that the executor sees one submission
+     * per batch rather than one per task, which otherwise can take longer than the tasks themselves.
+     *
+     * <p>
+     * Each task is still reported to the listener, and its failure handled according to
+     * {@link Task#failureIsFatal()}, on its own. Cheap tasks go into a few lanes per execution, and each lane
+     * runs the tasks put into it one after the other, up to {@value CheapTaskLane#BATCH} per submission.
+     * They skip the {@linkplain #prioritizeCriticalPath(CostModel) critical path} order.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     *
+     * @param cost
+     *      Estimates the cost of each task, for example with a {@link DurationHistory} of earlier executions,
+     *      or with a model that recognizes tasks known to be trivial. Null to stop coalescing.
+     * @param threshold
+     *      Tasks estimated to cost this much or less are cheap.
+     */
+    public synchronized void coalesceCheapTasks(CostModel cost, long threshold) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.cheapCost = cost;
+        this.cheapThreshold = threshold;
+    }
+
+    /**
+     * Runs a chain of tasks, such as one built with {@link TaskGraphBuilder#followedBy()}, on one thread
+     * instead of submitting each task in it to the executor.
+     *
+     * <p>
+     * When a task finishes and makes others ready to run, the first of them is run next by the same thread,
+     * saving a trip through the executor's queue and likely a move to another CPU. The others are submitted
+     * as usual, so this only ever keeps one task from going to another thread.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     *
+     * @param depth
+     *      Maximum number of tasks that a thread runs in a row after the one that was submitted to it,
+     *      so that a long chain doesn't keep the thread from other work forever. 0 to submit every task.
+     */
+    public synchronized void fuseChains(int depth) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        if (depth<0)    throw new IllegalArgumentException("Depth must not be negative: "+depth);
+        this.chainDepth = depth;
+    }
+
+    /**
+     * Watches the tasks for ones that take too long, and the execution for its deadline.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     *
+     * @param watchdog
+     *      Null to stop watching.
+     */
+    public synchronized void setWatchdog(Watchdog watchdog) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Starts a second copy of an {@link Idempotent} task that runs much longer than expected,
+     * and goes with whichever copy finishes first. See {@link Speculation}.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     *
+     * @param speculation
+     *      Null to never start copies.
+     */
+    public synchronized void speculate(Speculation speculation) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.speculation = speculation;
+    }
+
+    /**
+     * Interrupts the tasks still running when the execution fails fatally, so that a doomed execution
+     * gives back its threads sooner. Off by default, as not every task can take being interrupted.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     */
+    public synchronized void interruptOnFatalFailure(boolean interrupt) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.interruptOnFailure = interrupt;
+    }
+
+    /**
+     * Must be called while holding the monitor.
+     */
+    private void markCheap(Node n) {
+        n.cheap = cheapCost!=null && n.task!=null && cheapCost.estimate(n.task)<=cheapThreshold;
+    }
+
+    /**
+     * Limits the number of tasks running at once overall, to a number that is adjusted during the execution
+     * to what the machine can take. See {@link AdaptiveConcurrency}.
+     *
+     * <p>
+     * Must be called before the execution starts.
+     */
+    public synchronized void limitConcurrency(AdaptiveConcurrency limit) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        this.adaptiveConcurrency = limit;
+    }
+
+    /**
+     * Looks for problems in the graph built so far, before executing it.
+     *
+     * <p>
+     * Without this, tasks that form a cycle through their milestones are silently never run, and the
+     * execution ends without them. This takes time linear in the number of tasks, milestones and
+     * dependencies, so it's cheap enough to do on every run:
+     *
+     * <pre>
+     * GraphValidation v = reactor.validate();
+     * if (!v.isValid())
+     *     throw new IllegalStateException(v.toString());
+     * </pre>
+     *
+     * @throws IllegalStateException
+     *      if the execution has already started.
+     */
+    public synchronized GraphValidation validate() {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        ExecutionPlan p = ExecutionPlan.compile(nodes, edges, edgeCount);
+
+        List<List<String>> cycles = new ArrayList<>();
+        for (int[] c : p.findCycles()) {
+            List<String> names = new ArrayList<>(c.length);
+            for (int id : c) {
+                Node n = p.nodes[id];
+                names.add(n.task!=null ? n.task.getDisplayName() : String.valueOf(n.milestone));
+            }
+            cycles.add(names);
+        }
+
+        List<Milestone> unattained = new ArrayList<>();
+        for (Node n : p.nodes)
+            if (n.milestone!=null && p.inDegree[n.id]==0 && p.downstreamStart[n.id]<p.downstreamStart[n.id+1])
+                unattained.add(n.milestone);
+
+        return new GraphValidation(cycles, unattained);
+    }
+
     /**
      * Adds a new {@link Task} to the reactor.
      *
@@ -211,49 +1035,56 @@ public class Reactor implements Iterable<Reactor.Node> {
      * or else the newly added task can start executing before its dependencies are added.
      */
     public synchronized void addAll(Iterable<? extends Task> _tasks) {
-        List<Node> newNodes = new ArrayList<>();
+        if (frozen)     throw new IllegalStateException("This session is compiled into a plan and can no longer change");
+        ReactorEvents.TasksAdded event = null;
+        if (ReactorEvents.isRecording()) {
+            event = new ReactorEvents.TasksAdded();
+            event.begin();
+        }
+        final int first = nodes.size();
+        final int before = tasks.size();
         for (final Task t : _tasks) {
-            Node n = new Node(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        listener.onTaskStarted(t);
-                        runTask(t);
-                        listener.onTaskCompleted(t);
-                    } catch (Throwable x) {
-                        boolean fatal = t.failureIsFatal();
-                        TunnelException te = null;
-                        try {
-                            listener.onTaskFailed(t, x, fatal);
-                        } catch(Throwable x2) {
-                            te = new TunnelException(x2);
-                            x2.addSuppressed(x);
-                        }
-                        if (te == null) {
-                            te = new TunnelException(x);
-                        }
-                        if (fatal)
-                            throw te;
-                    }
-                }
-
-                @Override
-                public String toString() {
-                    return "Task:"+t.getDisplayName();
-                }
-            });
+            Node n = new Node(t,null);
+            ExecutionState s = state;
+            if (s!=null) {
+                // hold it back until all of its prerequisites are wired up
+                s.grow(nodes.size());
+                s.set(n.id, 1);
+            }
             for (Milestone req : t.requires())
                 n.addPrerequisite(milestone(req));
             for (Milestone a : t.attains())
                 milestone(a).addPrerequisite(n);
+            if (s!=null && criticalPath!=null) {
+                // the plan has already been prioritized, so make do with what this task attains
+                long longest = 0;
+                for (Milestone a : t.attains())
+                    longest = Math.max(longest, milestone(a).priority);
+                n.priority = criticalPath.estimate(t) + longest;
+            }
+            markCheap(n);
             tasks.add(n);
-            newNodes.add(n);
         }
 
-        for (Node n : newNodes)
-            n.runIfPossible();
-        for (Node n : milestones.values())
-            n.runIfPossible();
+        if (event!=null) {
+            event.tasks = tasks.size()-before;
+            event.executing = state!=null;
+            event.commit();
+        }
+
+        ExecutionState s = state;
+        if (s==null)    return; // not executing yet
+
+        // only the nodes created by this batch need a look: new tasks are released from the hold above,
+        // and new milestones that no task attains are attained right away. Existing milestones can only
+        // have gained prerequisites, so the cost is proportional to the batch, not to the whole graph.
+        for (int i=first, end=nodes.size(); i<end; i++) {
+            Node n = nodes.get(i);
+            if (n.task!=null)
+                prerequisiteDone(s, n);
+            else
+                runIfPossible(s, n);
+        }
     }
 
     /**
@@ -267,36 +1098,291 @@ public class Reactor implements Iterable<Reactor.Node> {
      * @throws InterruptedException
      *      if this thread is interrupted while waiting for the execution of tasks to complete.
      * @throws ReactorException
-     *      if one of the tasks failed by throwing an exception. The caller is responsible for canceling
-     *      existing {@link Task}s that are in progress in {@link Executor}, if that's desired. 
+     *      if one of the tasks failed by throwing an exception. Tasks that were waiting for a thread
+     *      are dropped without running, and {@linkplain ReactorException#getSkippedTasks() reported};
+     *      tasks that are in progress are left to finish, unless {@link #interruptOnFatalFailure(boolean)}.
+     */
+    public void execute(final Executor e, final ReactorListener listener) throws InterruptedException, ReactorException {
+        // the monitor is not held while waiting, so tasks are free to add more tasks
+        executeAsync(e, listener);
+        await(state);
+    }
+
+    /**
+     * Starts executing this initialization session with the given executor, without waiting for it to finish.
+     *
+     * <p>
+     * The returned stage completes normally when all the tasks have completed, or exceptionally with
+     * {@link ReactorException} as soon as one of them fails fatally. The stage completes on the thread
+     * that finishes the last task, so dependent actions that are not cheap should use one of the
+     * {@code *Async} variants. This allows a reactor to be composed with other asynchronous work,
+     * including another reactor running on the same executor, without tying up a thread to wait.
+     *
+     * @param e
+     *      Used for executing {@link Task}s.
+     * @param listener
+     *      Receives callbacks during the execution.
+     */
+    public synchronized CompletionStage<Void> executeAsync(final Executor e, final ReactorListener listener) {
+        ExecutionState s = begin(e, listener);
+        start(s);
+        return s.done.minimalCompletionStage();
+    }
+
+    /**
+     * Executes this session while discovering more tasks from the given builders, waiting for it to finish.
+     *
+     * @see #executeAsync(Executor, ReactorListener, Collection, Executor)
      */
-    public synchronized void execute(final Executor e, final ReactorListener listener) throws InterruptedException, ReactorException {
+    public void execute(Executor e, ReactorListener listener, Collection<? extends TaskBuilder> builders, Executor discovery)
+            throws InterruptedException, ReactorException {
+        executeAsync(e, listener, builders, discovery);
+        await(state);
+    }
+
+    /**
+     * Starts executing this session while the given builders are still discovering more tasks.
+     *
+     * <p>
+     * Each builder runs on the {@code discovery} executor, and its tasks join the execution as soon as
+     * it returns them. Tasks that can run start right away, but no milestone is attained until
+     * all the builders are done, when {@link #DISCOVERY_COMPLETE} is attained. That's because
+     * a builder still running might have a task that attains the same milestone. So this gets going
+     * the tasks that require nothing, while discovery is still under way. A failure in one of the builders
+     * is fatal, just like a failure in a task.
+     *
+     * @param e
+     *      Used for executing {@link Task}s.
+     * @param listener
+     *      Receives callbacks during the execution.
+     * @param builders
+     *      Discovered during the execution, in addition to the tasks already added.
+     * @param discovery
+     *      Runs {@link TaskBuilder#discoverTasks(Reactor)} of each builder.
+     */
+    public synchronized CompletionStage<Void> executeAsync(Executor e, ReactorListener listener,
+                                                           Collection<? extends TaskBuilder> builders, Executor discovery) {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        final Node barrier = milestone(DISCOVERY_COMPLETE);
+        for (Node m : milestones.values())
+            if (m!=barrier)
+                addEdge(barrier, m);
+
+        final ExecutionState s = begin(e, listener);
+        // hold back the barrier and the whole execution until all the builders are done
+        s.set(barrier.id, 1);
+        s.pending.incrementAndGet();
+        this.discovery = barrier;
+        start(s);
+
+        final AtomicInteger remaining = new AtomicInteger(builders.size()+1);
+        for (final TaskBuilder b : builders) {
+            Runnable job = () -> {
+                try {
+                    addAll(discover(b));
+                } catch (Throwable x) {
+                    s.fatal = new TunnelException(x instanceof CompletionException ? x.getCause() : x);
+                    finish(s);
+                } finally {
+                    if (remaining.decrementAndGet()==0)
+                        discovered(s, barrier);
+                }
+            };
+            try {
+                discovery.execute(job);
+            } catch (RuntimeException x) {
+                s.fatal = new TunnelException(x);
+                finish(s);
+                throw x;
+            }
+        }
+        if (remaining.decrementAndGet()==0)
+            discovered(s, barrier);
+        return s.done.minimalCompletionStage();
+    }
+
+    /**
+     * Called when all the builders are done, to let the milestones be attained.
+     */
+    private void discovered(ExecutionState s, Node barrier) {
+        synchronized (this) {
+            discovery = null;
+        }
+        prerequisiteDone(s, barrier);
+        settle(s);
+    }
+
+    /**
+     * Compiles the graph and sets up the execution of this session.
+     */
+    private ExecutionState begin(Executor e, ReactorListener listener) {
         if (executed)   throw new IllegalStateException("This session is already executed");
         executed = true;
 
-        this.executor = e;
-        this.listener = listener;
+        ExecutionPlan p = ExecutionPlan.compile(nodes, edges, edgeCount);
+        edges = null;
+        if (criticalPath!=null)
+            p.assignCriticalPaths(criticalPath);
+        if (cheapCost!=null) {
+            for (Node n : p.nodes)
+                markCheap(n);
+        }
+        this.plan = p;
+        ExecutionState s = newExecution(e, listener);
+        this.state = s;
+        return s;
+    }
+
+    /**
+     * Freezes the tasks added so far into a plan that can be executed any number of times.
+     *
+     * <p>
+     * This saves discovering the tasks and building the graph again for every execution. Afterward,
+     * this object can no longer be executed by itself, and no more tasks can be added to it,
+     * including by the tasks during the execution of the plan.
+     *
+     * @throws IllegalStateException
+     *      if the execution has already started.
+     */
+    public synchronized ReactorPlan compile() {
+        if (executed)   throw new IllegalStateException("This session is already executed");
+        executed = true;
+        frozen = true;
+
+        ExecutionPlan p = ExecutionPlan.compile(nodes, edges, edgeCount);
+        edges = null;
+        if (criticalPath!=null)
+            p.assignCriticalPaths(criticalPath);
+        if (cheapCost!=null) {
+            for (Node n : p.nodes)
+                markCheap(n);
+        }
+        this.plan = p;
+        return new ReactorPlan(this);
+    }
+
+    /**
+     * Sets up a new execution of {@link #plan}.
+     */
+    ExecutionState newExecution(Executor e, ReactorListener listener) {
+        ExecutionPlan p = plan;
+        PriorityBlockingQueue<Node> q = null;
+        if (criticalPath!=null)
+            q = new PriorityBlockingQueue<>(Math.max(1, p.roots.length), BY_PRIORITY);
+        Map<String,ResourceLimit> limits = Collections.emptyMap();
+        if (!resourceLimits.isEmpty()) {
+            limits = new HashMap<>();
+            for (Map.Entry<String,Integer> l : resourceLimits.entrySet())
+                limits.put(l.getKey(), new ResourceLimit(l.getValue(), q!=null ? BY_PRIORITY : null));
+        }
+        ResourceLimit running = adaptiveConcurrency!=null ? new ResourceLimit(adaptiveConcurrency, q!=null ? BY_PRIORITY : null) : null;
+        final ExecutionState s = new ExecutionState(p.inDegree, e, listener, q, limits, running);
+        if (cheapCost!=null) {
+            s.lanes = new CheapTaskLane[LANES];
+            for (int i=0; i<LANES; i++)
+                s.lanes[i] = new CheapTaskLane(s);
+        }
+        if (interruptOnFailure)
+            s.inFlight = new ConcurrentHashMap<>();
+        if (watchdog!=null)
+            watchdog.begin(this, s);
+        if (q!=null) {
+            s.runNext = new Runnable() {
+                @Override
+                public void run() {
+                    Node n = s.ready.poll();
+                    if (n!=null)
+                        n.run(s);
+                }
+
+                @Override
+                public String toString() {
+                    return "Next ready task";
+                }
+            };
+        }
+        return s;
+    }
+
+    /**
+     * Starts everything in the execution that can run.
+     */
+    void start(ExecutionState s) {
+        ExecutionPlan p = plan;
+        // hold the execution open until all the roots are dispatched, so that it doesn't look over
+        // when the first ones complete before the rest are submitted
+        s.pending.incrementAndGet();
         try {
-            // start everything that can run
-            for (Node n : tasks)
-                n.runIfPossible();
-            for (Node n : milestones.values())
-                n.runIfPossible();
-
-            // block until everything is done
-            while(pending>0) {
-                wait();
-                if (fatal!=null) {
-                    throw new ReactorException(fatal.getCause());
+            PriorityBlockingQueue<Node> q = s.ready;
+            if (q!=null) {
+                // a failure along the way finishes the execution, which lets go of its executor
+                Executor e = s.executor;
+                // queue up all the root tasks before any thread starts picking, so that the first picks are right
+                int queued = 0;
+                for (int id : p.roots) {
+                    if (s.fatal!=null)  break;
+                    Node n = p.nodes[id];
+                    if (n.task!=null && s.compareAndSet(n.id, 0, ExecutionState.SUBMITTED)) {
+                        if (!ready(s, n))   break;
+                        s.pending.incrementAndGet();
+                        int got = acquire(s, n);
+                        if (got<0) {
+                            if (n.cheap && s.lanes!=null) {
+                                submit(s, n);
+                            } else {
+                                q.add(n);
+                                queued++;
+                            }
+                        } else {
+                            release(s, n, got);
+                        }
+                    }
                 }
+                for (int i=0; i<queued && s.fatal==null; i++)
+                    e.execute(s.runNext);
             }
-        } finally {
-            // avoid memory leak
-            this.executor = null;
-            this.listener = ReactorListener.NOOP;
+            for (int id : p.roots)
+                runIfPossible(s, p.nodes[id]);
+        } catch (RuntimeException | Error x) {
+            s.executor = null;
+            s.listener = ReactorListener.NOOP;
+            s.done.completeExceptionally(x);
+            throw x;
+        }
+        settle(s);
+    }
+
+    /**
+     * Waits for the execution to finish.
+     */
+    static void await(ExecutionState s) throws InterruptedException, ReactorException {
+        try {
+            s.done.get();
+        } catch (ExecutionException x) {
+            // rethrow from this thread, so that the stack trace leads back to the caller
+            Throwable c = x.getCause();
+            if (c instanceof ReactorException)
+                throw new ReactorException(c.getCause(), ((ReactorException) c).getSkippedTasks());
+            throw new ReactorException(c);
+        } catch (InterruptedException x) {
+            // stop dispatching, like an execution that's over
+            s.executor = null;
+            s.listener = ReactorListener.NOOP;
+            throw x;
         }
     }
 
+    /**
+     * Number of {@link CheapTaskLane}s per execution.
+     */
+    private static final int LANES = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Most urgent first, then in the order they were added.
+     */
+    private static final Comparator<Node> BY_PRIORITY = (a, b) ->
+            a.priority!=b.priority ? Long.compare(b.priority, a.priority) : Integer.compare(a.id, b.id);
+
     /**
      * Can be overridden by the subtype to enclose the entire execution of the task.
      */
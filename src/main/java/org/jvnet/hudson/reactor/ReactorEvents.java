@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events that {@link Reactor} emits, so that its activity shows up in recordings
+ * next to GC, I/O and lock events. They are disabled unless a recording enables them, for example with
+ * {@code -XX:StartFlightRecording:settings=profile} or by name.
+ *
+ * <p>
+ * Callers only create an event once {@link #isRecording()}, as loading an event class registers it with JFR
+ * and starts up its machinery, whether or not anything records it. Until then, a disabled event
+ * costs a field read and nothing else, and {@code jdk.jfr} isn't needed at run time.
+ */
+final class ReactorEvents {
+    private ReactorEvents() {}
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    /**
+     * True once Flight Recorder has been started, which any recording does.
+     * It then stays up, so events are created from then on and checked for being enabled as usual.
+     */
+    static boolean isRecording() {
+        return AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    @Name("org.jvnet.hudson.reactor.Task")
+    @Label("Reactor Task")
+    @Category({"Jenkins", "Reactor"})
+    @Description("Execution of a task, from when it started running to when it ended")
+    @StackTrace(false)
+    static final class TaskExecution extends Event {
+        @Label("Task")
+        String displayName;
+
+        @Label("Failure Is Fatal")
+        boolean fatal;
+
+        @Label("Queue Delay")
+        @Description("How long the task waited for a thread after its prerequisites were attained")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueDelay;
+
+        @Label("Outcome")
+        @Description("completed, failed or fatal")
+        String outcome;
+    }
+
+    @Name("org.jvnet.hudson.reactor.Milestone")
+    @Label("Reactor Milestone")
+    @Category({"Jenkins", "Reactor"})
+    @Description("Attainment of a milestone, for as long as the listener took")
+    @StackTrace(false)
+    static final class MilestoneAttained extends Event {
+        @Label("Milestone")
+        String milestone;
+    }
+
+    @Name("org.jvnet.hudson.reactor.AddAll")
+    @Label("Reactor Tasks Added")
+    @Category({"Jenkins", "Reactor"})
+    @Description("A batch of tasks added to a reactor")
+    static final class TasksAdded extends Event {
+        @Label("Tasks")
+        int tasks;
+
+        @Label("During Execution")
+        boolean executing;
+    }
+}
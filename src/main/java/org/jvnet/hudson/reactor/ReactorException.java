@@ -23,12 +23,34 @@
  */
 package org.jvnet.hudson.reactor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Used to tunnel application-thrown {@link Throwable} (Error or Exception) to the caller.
  * @author Kohsuke Kawaguchi
  */
 public class ReactorException extends Exception {
+    /**
+     * Tasks aren't serializable, so they don't make it across, and null after deserialization.
+     */
+    private final transient List<Task> skipped;
+
     ReactorException(Throwable cause) {
+        this(cause, Collections.emptyList());
+    }
+
+    ReactorException(Throwable cause, List<Task> skipped) {
         super(cause);
+        this.skipped = Collections.unmodifiableList(new ArrayList<>(skipped));
+    }
+
+    /**
+     * Tasks that never ran because of the failure, including the ones that were already waiting for a thread.
+     * Empty if this exception was serialized.
+     */
+    public List<Task> getSkippedTasks() {
+        return skipped!=null ? skipped : Collections.emptyList();
     }
 }
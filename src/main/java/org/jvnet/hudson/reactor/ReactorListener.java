@@ -35,6 +35,16 @@ import java.util.Collection;
  * @author Kohsuke Kawaguchi
  */
 public interface ReactorListener {
+    /**
+     * Notifies that all the prerequisites of the task are attained, and it's about to be handed to the {@link Executor}.
+     *
+     * This happens on the thread that attained the last prerequisite, before {@link #onTaskStarted(Task)}.
+     * The time between the two is how long the task waited for a thread.
+     */
+    default void onTaskReady(Task t) {
+        // Do nothing by default
+    }
+
     /**
      * Notifies that the execution of the task is about to start.
      */
@@ -45,7 +55,8 @@ public interface ReactorListener {
     /**
      * Notifies that the execution of the task is about to finish.
      *
-     * This happens on the same thread that called {@link #onTaskStarted(Task)}.
+     * This happens on the same thread that called {@link #onTaskStarted(Task)}, unless the task is still running
+     * when a {@linkplain Speculation speculative copy} of it finishes first. That copy's thread reports it instead.
      */
     default void onTaskCompleted(Task t) {
         // Do nothing by default
@@ -54,6 +65,9 @@ public interface ReactorListener {
     /**
      * Notifies that the execution of the task have failed with an exception.
      *
+     * Like {@link #onTaskCompleted(Task)}, this usually happens on the thread that ran the task, but a task that
+     * the {@link Watchdog} fails, or whose speculative copy fails first, is reported from that other thread.
+     *
      * @param err
      *      Either {@link Error} or {@link Exception}, indicating the cause of the failure.
      * @param fatal
@@ -66,6 +80,9 @@ public interface ReactorListener {
 
     /**
      * Indicates that the following milestone was attained.
+     *
+     * This happens on the thread that completed the last task contributing to the milestone,
+     * or for milestones that no task attains, on the thread that started the execution or added them.
      */
     default void onAttained(Milestone milestone)  {
         // Do nothing by default
@@ -85,6 +102,11 @@ public interface ReactorListener {
             this.listeners = listeners;
         }
 
+        @Override
+        public void onTaskReady(Task t) {
+            run(l -> l.onTaskReady(t));
+        }
+
         @Override
         public void onTaskStarted(Task t) {
             run(l -> l.onTaskStarted(t));
@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * The graph of a {@link Reactor}, frozen so that it can be executed over and over, by any number
+ * of threads at once. Created by {@link Reactor#compile()}.
+ *
+ * <p>
+ * The topology is compiled once and shared. Each execution only allocates its own counters,
+ * one int per task and milestone, so this is much cheaper than discovering the tasks and building
+ * a new {@link Reactor} every time.
+ */
+public final class ReactorPlan {
+    private final Reactor reactor;
+
+    ReactorPlan(Reactor reactor) {
+        this.reactor = reactor;
+    }
+
+    /**
+     * The reactor that this plan was compiled from, which is what the tasks are given when they run.
+     */
+    public Reactor getReactor() {
+        return reactor;
+    }
+
+    /**
+     * Number of tasks in the plan.
+     */
+    public int size() {
+        return reactor.size();
+    }
+
+    public void execute(Executor e) throws InterruptedException, ReactorException {
+        execute(e, ReactorListener.NOOP);
+    }
+
+    /**
+     * Executes the plan once, just like {@link Reactor#execute(Executor, ReactorListener)}.
+     */
+    public void execute(Executor e, ReactorListener listener) throws InterruptedException, ReactorException {
+        ExecutionState s = reactor.newExecution(e, listener);
+        reactor.start(s);
+        Reactor.await(s);
+    }
+
+    /**
+     * Starts executing the plan once, just like {@link Reactor#executeAsync(Executor, ReactorListener)}.
+     */
+    public CompletionStage<Void> executeAsync(Executor e, ReactorListener listener) {
+        ExecutionState s = reactor.newExecution(e, listener);
+        reactor.start(s);
+        return s.done.minimalCompletionStage();
+    }
+}
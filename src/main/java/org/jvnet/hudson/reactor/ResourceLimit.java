@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Permits for one resource tag in one execution, and the tasks waiting for them.
+ *
+ * <p>
+ * Waiting tasks are just kept in a queue, not on a thread. Whoever gives back a permit takes one of them out,
+ * and tries to get all of its permits again.
+ */
+final class ResourceLimit {
+    private final int permits;
+
+    /**
+     * If non-null, decides the number of permits instead of {@link #permits}.
+     */
+    private final AdaptiveConcurrency adaptive;
+
+    private int used;
+
+    private final Queue<Reactor.Node> waiting;
+
+    /**
+     * @param order
+     *      Order in which waiting tasks get their turn, or null for the order they started waiting.
+     */
+    ResourceLimit(int permits, Comparator<Reactor.Node> order) {
+        this(permits, null, order);
+    }
+
+    ResourceLimit(AdaptiveConcurrency adaptive, Comparator<Reactor.Node> order) {
+        this(0, adaptive, order);
+    }
+
+    private ResourceLimit(int permits, AdaptiveConcurrency adaptive, Comparator<Reactor.Node> order) {
+        this.permits = permits;
+        this.adaptive = adaptive;
+        this.waiting = order!=null ? new PriorityQueue<>(order) : new ArrayDeque<>();
+    }
+
+    private int permits() {
+        return adaptive!=null ? adaptive.getLimit() : permits;
+    }
+
+    /**
+     * Takes a permit if there is one, or else puts the node in the queue.
+     */
+    synchronized boolean tryAcquire(Reactor.Node n) {
+        if (used<permits()) {
+            used++;
+            return true;
+        }
+        waiting.add(n);
+        return false;
+    }
+
+    /**
+     * Gives back a permit.
+     *
+     * @param woken
+     *      Receives the nodes that were waiting and should try again; more than one if the limit went up.
+     */
+    synchronized void release(List<Reactor.Node> woken) {
+        used--;
+        for (int i=permits()-used; i>0 && !waiting.isEmpty(); i--)
+            woken.add(waiting.poll());
+    }
+
+    /**
+     * Number of permits taken.
+     */
+    synchronized int used() {
+        return used;
+    }
+}
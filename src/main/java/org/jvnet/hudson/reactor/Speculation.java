@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When to start a second copy of an {@link Idempotent} task that's running much longer than expected,
+ * set with {@link Reactor#speculate(Speculation)}.
+ *
+ * <p>
+ * Occasional stragglers, such as a task that happens to hit a slow file system, otherwise hold up everything
+ * that depends on them. Whichever copy finishes first decides the outcome of the task, and the other one is
+ * interrupted and its outcome ignored. The listener only hears about the task once. The copy doesn't count
+ * toward the {@linkplain Reactor#limitConcurrency(String, int) concurrency limits}.
+ *
+ * <pre>
+ * reactor.speculate(new Speculation(DurationHistory.load(file), TimeUnit.MICROSECONDS));
+ * </pre>
+ */
+public final class Speculation {
+    private final CostModel expected;
+    private final TimeUnit unit;
+    private volatile double slowdown = 3;
+    private volatile long minimum = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * @param expected
+     *      How long each task is expected to take, such as a {@link DurationHistory} of earlier executions.
+     * @param unit
+     *      Unit of the estimates.
+     */
+    public Speculation(CostModel expected, TimeUnit unit) {
+        this.expected = expected;
+        this.unit = unit;
+    }
+
+    /**
+     * Sets how many times longer than expected a task has to run for a copy to be started. 3 by default.
+     */
+    public Speculation slowdown(double factor) {
+        if (!(factor>=1))   throw new IllegalArgumentException("Slowdown must be at least 1: "+factor);
+        this.slowdown = factor;
+        return this;
+    }
+
+    /**
+     * Sets how long a task has to run at least for a copy to be started, however short it's expected to be.
+     * 100ms by default, which keeps the noise in the timing of short tasks from starting needless copies.
+     */
+    public Speculation minimum(Duration d) {
+        this.minimum = d.toNanos();
+        return this;
+    }
+
+    /**
+     * Arranges for a copy of the task to be started if it's still running when it's time.
+     */
+    ScheduledFuture<?> schedule(Task t, Runnable copy) {
+        double nanos = unit.toNanos(1)*(double) expected.estimate(t)*slowdown;
+        long delay = Math.max(minimum, nanos>=Long.MAX_VALUE ? Long.MAX_VALUE : (long) nanos);
+        return Timer.INSTANCE.schedule(copy, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Started on first use.
+     */
+    private static final class Timer {
+        static final ScheduledExecutorService INSTANCE;
+
+        static {
+            ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "Reactor speculation timer");
+                t.setDaemon(true);
+                return t;
+            });
+            e.setRemoveOnCancelPolicy(true);
+            INSTANCE = e;
+        }
+    }
+
+    /**
+     * The two copies of a run of a task, and which one finished first.
+     */
+    static final class Race {
+        static final int ORIGINAL = 1, COPY = 2;
+
+        final Thread original = Thread.currentThread();
+
+        /**
+         * What the watchdog knows about the original, which it may fail before either copy finishes, or null.
+         */
+        final Watchdog.Watch watch;
+
+        volatile ScheduledFuture<?> timer;
+
+        // guarded by 'this'
+        private int winner;
+        private Thread copy;
+        private boolean originalDone, copyDone;
+
+        Race(Watchdog.Watch watch) {
+            this.watch = watch;
+        }
+
+        synchronized boolean isDecided() {
+            return winner!=0;
+        }
+
+        synchronized boolean isWonBy(int who) {
+            return winner==who;
+        }
+
+        /**
+         * @return
+         *      true if the given copy is the first to finish, or already was.
+         */
+        synchronized boolean decide(int who) {
+            if (winner==0)
+                winner = who;
+            return winner==who;
+        }
+
+        /**
+         * Called by the thread that runs the copy before it starts.
+         *
+         * @return
+         *      false if it's too late.
+         */
+        synchronized boolean startCopy() {
+            if (winner!=0 || originalDone)  return false;
+            copy = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * Called by the original once it's done, one way or the other.
+         */
+        void originalDone(boolean won) {
+            synchronized (this) {
+                originalDone = true;
+                if (won && copy!=null && !copyDone)
+                    copy.interrupt();
+            }
+            ScheduledFuture<?> t = timer;
+            if (t!=null)
+                t.cancel(false);
+            if (!won)
+                Thread.interrupted();   // meant for the task, not whatever the thread does next
+        }
+
+        /**
+         * Called by the copy once it's done.
+         */
+        void copyDone(boolean won) {
+            synchronized (this) {
+                copyDone = true;
+                if (won && !originalDone)
+                    original.interrupt();
+            }
+            Thread.interrupted();
+        }
+    }
+}
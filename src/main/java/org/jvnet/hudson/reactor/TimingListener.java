@@ -0,0 +1,310 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Records when each {@link Task} became ready, started and ended, cheaply enough to be left on.
+ *
+ * <p>
+ * The tasks known when the listener is created get their slots up front, so recording an event is
+ * a lookup in a map that is never modified, a {@link System#nanoTime()} and a store into a slot that
+ * only the thread running the task writes to. Tasks added during the execution are given slots
+ * as they show up. Times are measured from when the listener is created, so create it right before
+ * executing the reactor:
+ *
+ * <pre>
+ * TimingListener timings = new TimingListener(reactor);
+ * reactor.execute(executor, timings);
+ * LOGGER.info("Slowest tasks: "+timings.getSlowest(10));
+ * </pre>
+ *
+ * <p>
+ * The summaries are meant to be taken after the execution has finished.
+ */
+public class TimingListener implements ReactorListener {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1<<CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE-1;
+
+    /**
+     * Slots of the tasks that the reactor had when this listener was created. Never modified afterward.
+     */
+    private final Map<Task,Integer> index = new IdentityHashMap<>();
+
+    /**
+     * Slots of the tasks added later. Guarded by 'this' for writes.
+     */
+    private final Map<Task,Integer> late = new ConcurrentHashMap<>();
+
+    /**
+     * Only ever replaced by a longer copy, under the monitor.
+     */
+    private volatile Chunk[] chunks;
+
+    /**
+     * Number of slots in use. Guarded by 'this'.
+     */
+    private int size;
+
+    private final Map<Milestone,Long> attained = new ConcurrentHashMap<>();
+
+    /**
+     * Everything is recorded relative to this, offset so that zero means "not yet".
+     */
+    private final long origin;
+
+    /**
+     * Timestamps of a run of slots, in nanoseconds since {@link #origin}.
+     */
+    private static final class Chunk {
+        final Task[] tasks = new Task[CHUNK_SIZE];
+        final long[] ready = new long[CHUNK_SIZE];
+        final long[] started = new long[CHUNK_SIZE];
+        final long[] ended = new long[CHUNK_SIZE];
+    }
+
+    public TimingListener(Reactor reactor) {
+        List<Task> tasks = new ArrayList<>();
+        synchronized (reactor) {
+            for (Reactor.Node n : reactor)
+                tasks.add(n.task);
+        }
+        chunks = new Chunk[0];
+        for (Task t : tasks)
+            index.put(t, allocate(t));
+        origin = System.nanoTime()-1;
+    }
+
+    private long now() {
+        return System.nanoTime()-origin;
+    }
+
+    private int slotOf(Task t) {
+        Integer i = index.get(t);
+        if (i==null) {
+            i = late.get(t);
+            if (i==null) {
+                synchronized (this) {
+                    i = late.computeIfAbsent(t, this::allocate);
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Must be called while holding the monitor, except from the constructor.
+     */
+    private int allocate(Task t) {
+        int i = size++;
+        Chunk[] c = chunks;
+        if ((i>>>CHUNK_BITS)>=c.length) {
+            c = Arrays.copyOf(c, c.length+1);
+            c[c.length-1] = new Chunk();
+            chunks = c;
+        }
+        c[i>>>CHUNK_BITS].tasks[i&CHUNK_MASK] = t;
+        return i;
+    }
+
+    private Chunk chunk(int i) {
+        return chunks[i>>>CHUNK_BITS];
+    }
+
+    @Override
+    public void onTaskReady(Task t) {
+        int i = slotOf(t);
+        chunk(i).ready[i&CHUNK_MASK] = now();
+    }
+
+    @Override
+    public void onTaskStarted(Task t) {
+        int i = slotOf(t);
+        chunk(i).started[i&CHUNK_MASK] = now();
+    }
+
+    @Override
+    public void onTaskCompleted(Task t) {
+        int i = slotOf(t);
+        chunk(i).ended[i&CHUNK_MASK] = now();
+    }
+
+    @Override
+    public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+        // the failure is reported instead of the completion
+        onTaskCompleted(t);
+    }
+
+    @Override
+    public void onAttained(Milestone milestone) {
+        attained.put(milestone, now());
+    }
+
+    /**
+     * Timings of one task.
+     */
+    public static final class Timing {
+        private final Task task;
+        private final long ready, started, ended;
+
+        private Timing(Task task, long ready, long started, long ended) {
+            this.task = task;
+            this.ready = ready;
+            this.started = started;
+            this.ended = ended;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * How long the task waited for a thread after its prerequisites were attained.
+         */
+        public Duration getQueueWait() {
+            return Duration.ofNanos(ready==0 ? 0 : started-ready);
+        }
+
+        public Duration getRunTime() {
+            return Duration.ofNanos(ended-started);
+        }
+
+        /**
+         * When the task ended, since the listener was created.
+         */
+        public Duration getCompletedAt() {
+            return Duration.ofNanos(ended-1);
+        }
+
+        @Override
+        public String toString() {
+            return task.getDisplayName()+" ran "+getRunTime().toMillis()+"ms after waiting "+getQueueWait().toMillis()+"ms";
+        }
+    }
+
+    /**
+     * Percentiles of a set of durations.
+     */
+    public static final class Distribution {
+        private final long[] sorted;
+
+        private Distribution(long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        public int getCount() {
+            return sorted.length;
+        }
+
+        /**
+         * @param p
+         *      Between 0 and 100.
+         */
+        public Duration getPercentile(double p) {
+            if (sorted.length==0)   return Duration.ZERO;
+            int rank = (int)Math.ceil(p/100*sorted.length);
+            return Duration.ofNanos(sorted[Math.max(0, Math.min(sorted.length, rank)-1)]);
+        }
+
+        public Duration getMedian() {
+            return getPercentile(50);
+        }
+
+        public Duration getMax() {
+            return getPercentile(100);
+        }
+
+        @Override
+        public String toString() {
+            return "count="+getCount()+" p50="+getMedian().toMillis()+"ms p99="+getPercentile(99).toMillis()
+                    +"ms max="+getMax().toMillis()+"ms";
+        }
+    }
+
+    /**
+     * Timings of all the tasks that ran to the end, in no particular order.
+     */
+    public List<Timing> getTimings() {
+        int n;
+        synchronized (this) {
+            n = size;
+        }
+        Chunk[] c = chunks;
+        List<Timing> r = new ArrayList<>(n);
+        for (int i=0; i<n; i++) {
+            Chunk k = c[i>>>CHUNK_BITS];
+            int j = i&CHUNK_MASK;
+            if (k.started[j]!=0 && k.ended[j]!=0)
+                r.add(new Timing(k.tasks[j], k.ready[j], k.started[j], k.ended[j]));
+        }
+        return r;
+    }
+
+    public Distribution getQueueWait() {
+        return distribution(Timing::getQueueWait);
+    }
+
+    public Distribution getRunTime() {
+        return distribution(Timing::getRunTime);
+    }
+
+    private Distribution distribution(Function<Timing,Duration> f) {
+        List<Timing> timings = getTimings();
+        long[] values = new long[timings.size()];
+        for (int i=0; i<values.length; i++)
+            values[i] = f.apply(timings.get(i)).toNanos();
+        Arrays.sort(values);
+        return new Distribution(values);
+    }
+
+    /**
+     * The tasks that took the longest to run, slowest first.
+     */
+    public List<Timing> getSlowest(int n) {
+        List<Timing> timings = getTimings();
+        timings.sort(Comparator.comparing(Timing::getRunTime).reversed());
+        return timings.subList(0, Math.min(n, timings.size()));
+    }
+
+    /**
+     * When each milestone was attained, since the listener was created.
+     */
+    public Map<Milestone,Duration> getAttainmentTimes() {
+        Map<Milestone,Duration> r = new HashMap<>();
+        for (Map.Entry<Milestone,Long> e : attained.entrySet())
+            r.put(e.getKey(), Duration.ofNanos(e.getValue()-1));
+        return r;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedTransferQueue;
+
+/**
+ * Writes the execution as a timeline in the Chrome trace event format, which can be opened in
+ * {@code chrome://tracing} or <a href="https://ui.perfetto.dev/">Perfetto</a>.
+ *
+ * <p>
+ * Each task is a slice on the track of the thread that started it, and each milestone is an instant
+ * across all tracks, so idle threads and tasks that everything else waits for stand out.
+ * Callbacks only put the event on a queue; a background thread does the formatting and the I/O.
+ * {@link #close()} must be called after the execution to finish the file.
+ *
+ * <pre>
+ * try (TraceListener trace = new TraceListener(new File("reactor-trace.json"))) {
+ *     reactor.execute(executor, trace);
+ * }
+ * </pre>
+ */
+public class TraceListener implements ReactorListener, Closeable {
+    private final Writer out;
+
+    private final LinkedTransferQueue<Event> queue = new LinkedTransferQueue<>();
+
+    private final Thread writer;
+
+    /**
+     * Thread that each running task started on. A task ended by the {@link Watchdog} or by a
+     * {@linkplain Speculation speculative copy} is reported from another thread, but its slice ends on this one.
+     */
+    private final ConcurrentMap<Task,Thread> running = new ConcurrentHashMap<>();
+
+    /**
+     * Timestamps are in microseconds since this.
+     */
+    private final long origin = System.nanoTime();
+
+    /**
+     * Failure from the writer thread, reported by {@link #close()}.
+     */
+    private volatile IOException failure;
+
+    private boolean closed;
+
+    private static final class Event {
+        final char phase;
+        final String name;
+        final Thread thread;
+        final long nanos;
+        final boolean failed;
+
+        Event(char phase, String name, Thread thread, long nanos, boolean failed) {
+            this.phase = phase;
+            this.name = name;
+            this.thread = thread;
+            this.nanos = nanos;
+            this.failed = failed;
+        }
+    }
+
+    /**
+     * Tells the writer thread to finish.
+     */
+    private static final Event END = new Event('-', null, null, 0, false);
+
+    public TraceListener(File file) throws IOException {
+        this(Files.newOutputStream(file.toPath()));
+    }
+
+    /**
+     * @param out
+     *      Closed by {@link #close()}.
+     */
+    public TraceListener(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer = new Thread(this::write, "Reactor trace writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void add(char phase, String name, Thread thread, boolean failed) {
+        queue.add(new Event(phase, name, thread, System.nanoTime(), failed));
+    }
+
+    private void end(Task t, boolean failed) {
+        Thread thread = running.remove(t);
+        add('E', t.getDisplayName(), thread!=null ? thread : Thread.currentThread(), failed);
+    }
+
+    @Override
+    public void onTaskStarted(Task t) {
+        running.put(t, Thread.currentThread());
+        add('B', t.getDisplayName(), Thread.currentThread(), false);
+    }
+
+    @Override
+    public void onTaskCompleted(Task t) {
+        end(t, false);
+    }
+
+    @Override
+    public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+        end(t, true);
+    }
+
+    @Override
+    public void onAttained(Milestone milestone) {
+        add('i', String.valueOf(milestone), Thread.currentThread(), false);
+    }
+
+    private void write() {
+        Set<Long> threads = new HashSet<>();
+        try {
+            out.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            while (true) {
+                Event e = queue.poll();
+                if (e==null) {
+                    // write out what we have before going idle
+                    out.flush();
+                    e = queue.take();
+                }
+                if (e==END)     break;
+
+                long tid = e.thread.getId();
+                if (threads.add(tid)) {
+                    first = separate(first);
+                    out.write("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":"+tid+",\"args\":{\"name\":");
+                    string(e.thread.getName());
+                    out.write("}}");
+                }
+                first = separate(first);
+                out.write("{\"ph\":\""+e.phase+"\",\"pid\":1,\"tid\":"+tid+",\"ts\":"+(e.nanos-origin)/1000+",\"name\":");
+                string(e.name);
+                if (e.phase=='i')
+                    out.write(",\"cat\":\"milestone\",\"s\":\"g\"");
+                else
+                    out.write(",\"cat\":\"task\"");
+                if (e.failed)
+                    out.write(",\"args\":{\"failed\":true}");
+                out.write('}');
+            }
+            out.write("\n]}\n");
+            out.flush();
+        } catch (IOException x) {
+            failure = x;
+        } catch (InterruptedException x) {
+            failure = new InterruptedIOException();
+        }
+    }
+
+    private boolean separate(boolean first) throws IOException {
+        if (!first)
+            out.write(",\n");
+        return false;
+    }
+
+    private void string(String s) throws IOException {
+        out.write('"');
+        if (s!=null) {
+            for (int i=0; i<s.length(); i++) {
+                char ch = s.charAt(i);
+                if (ch=='"' || ch=='\\') {
+                    out.write('\\');
+                    out.write(ch);
+                } else if (ch<0x20) {
+                    out.write(String.format("\\u%04x", (int) ch));
+                } else {
+                    out.write(ch);
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Writes out the remaining events and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)     return;
+        closed = true;
+        queue.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            out.close();
+        }
+        if (failure!=null)
+            throw failure;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link Executor} for {@link Reactor#execute(Executor, ReactorListener)} that runs each task on its own virtual thread.
+ *
+ * <p>
+ * Suited for graphs whose tasks mostly wait for I/O, as blocked tasks don't tie up platform threads.
+ * The number of tasks in flight can still be capped; tasks over the cap wait on their virtual threads
+ * without occupying a carrier thread. How many of them run on a CPU at once is bounded by the carrier threads,
+ * see {@code jdk.virtualThreadScheduler.parallelism}.
+ *
+ * <p>
+ * A task that blocks while its virtual thread can't be unmounted (typically inside {@code synchronized})
+ * pins the carrier thread and reduces the concurrency of every other task. When asked to, the executor detects
+ * such cases among its own threads through Java Flight Recorder, reports them to the log with the offending
+ * stack trace, and counts them in {@link #getPinnedCount()}.
+ *
+ * <p>
+ * Requires Java 21 or later; see {@link #isSupported()}.
+ */
+public class VirtualThreadExecutor implements Executor, AutoCloseable {
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private final ThreadFactory threads;
+
+    /**
+     * Name prefix of the threads of this executor, which tells its pinning apart from that of the rest of the JVM.
+     */
+    private final String threadName;
+
+    /**
+     * Caps the number of tasks running at once, or null if there's no cap.
+     */
+    private final Semaphore running;
+
+    /**
+     * JFR stream listening for {@link #PINNED}, or null if pinning isn't being watched.
+     */
+    private final AutoCloseable pinningMonitor;
+
+    private final AtomicLong pinned = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Runs any number of tasks at once, and doesn't watch for pinning.
+     */
+    public VirtualThreadExecutor() {
+        this(0);
+    }
+
+    /**
+     * @param maxConcurrency
+     *      See {@link #VirtualThreadExecutor(int, Duration)}.
+     */
+    public VirtualThreadExecutor(int maxConcurrency) {
+        this(maxConcurrency, null);
+    }
+
+    /**
+     * @param maxConcurrency
+     *      Maximum number of tasks in flight, or 0 for no limit. This counts tasks blocked on I/O too,
+     *      since a virtual thread can't tell waiting from computing; the number of tasks on a CPU at once
+     *      is bounded by the carrier threads instead.
+     * @param pinningThreshold
+     *      Pinning of this executor's threads that lasts longer than this is reported. Null to not watch for pinning,
+     *      which otherwise keeps a Flight Recorder stream with stack traces open until {@link #close()}.
+     * @throws UnsupportedOperationException
+     *      if this JVM doesn't support virtual threads.
+     */
+    public VirtualThreadExecutor(int maxConcurrency, Duration pinningThreshold) {
+        if (maxConcurrency<0)   throw new IllegalArgumentException("maxConcurrency: "+maxConcurrency);
+        this.threadName = "Reactor virtual thread #"+INSTANCES.incrementAndGet()+"-";
+        this.threads = virtualThreadFactory(threadName);
+        this.running = maxConcurrency>0 ? new Semaphore(maxConcurrency) : null;
+        this.pinningMonitor = pinningThreshold!=null ? monitorPinning(pinningThreshold, this::onPinned) : null;
+    }
+
+    /**
+     * Returns true if this JVM can run tasks on virtual threads.
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (closed)     throw new RejectedExecutionException("Already closed");
+        threads.newThread(() -> {
+            if (running==null) {
+                command.run();
+                return;
+            }
+            // interrupting a task that was never run would leave the reactor waiting for it forever
+            running.acquireUninterruptibly();
+            try {
+                command.run();
+            } finally {
+                running.release();
+            }
+        }).start();
+    }
+
+    /**
+     * Number of times a virtual thread was found pinned to its carrier for longer than the threshold.
+     */
+    public long getPinnedCount() {
+        return pinned.get();
+    }
+
+    /**
+     * Stops accepting new tasks and stops watching for pinning. Tasks already submitted still run.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (pinningMonitor!=null) {
+            try {
+                pinningMonitor.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Failed to stop watching for pinned virtual threads", e);
+            }
+        }
+    }
+
+    private void onPinned(RecordedEvent e) {
+        // the stream sees every virtual thread in the JVM
+        RecordedThread t = e.getThread("eventThread");
+        if (t==null || t.getJavaName()==null || !t.getJavaName().startsWith(threadName))
+            return;
+        pinned.incrementAndGet();
+        LOGGER.log(Level.WARNING, "A reactor task pinned its carrier thread for {0}ms, "
+                + "most likely by blocking inside synchronized or a native frame:\n{1}",
+                new Object[] {e.getDuration().toMillis(), e});
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name) {
+        if (!isSupported())
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        try {
+            // Thread.ofVirtual().name(name, 1).factory(), without requiring Java 21 to compile
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object b = Thread.class.getMethod("ofVirtual").invoke(null);
+            b = builder.getMethod("name", String.class, long.class).invoke(b, name, 1L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(b);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Failed to create virtual threads", e);
+        }
+    }
+
+    /**
+     * Streams {@link #PINNED} events from Flight Recorder, which happens in the background.
+     *
+     * @return
+     *      null if the events can't be streamed, in which case pinning goes unnoticed.
+     */
+    private static AutoCloseable monitorPinning(Duration threshold, Consumer<RecordedEvent> handler) {
+        try {
+            // jdk.jfr.consumer.RecordingStream is Java 14+
+            Class<?> rs = Class.forName("jdk.jfr.consumer.RecordingStream");
+            AutoCloseable stream = (AutoCloseable) rs.getConstructor().newInstance();
+            EventSettings settings = (EventSettings) rs.getMethod("enable", String.class).invoke(stream, PINNED);
+            settings.withThreshold(threshold).withStackTrace();
+            rs.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED, handler);
+            rs.getMethod("startAsync").invoke(stream);
+            return stream;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.log(Level.FINE, "Unable to watch for pinned virtual threads", e);
+            return null;
+        }
+    }
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreadExecutor.class.getName());
+}
@@ -0,0 +1,311 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps an eye on the tasks of the executions of a {@link Reactor}, so that one that hangs is noticed
+ * within seconds, rather than by everything downstream of it never happening. Set with {@link Reactor#setWatchdog(Watchdog)}.
+ *
+ * <p>
+ * A task that runs longer than its timeout is reported in the log, along with the stack trace of the thread running it,
+ * and then dealt with according to the {@linkplain #onTimeout(Action) action}. Tasks can have timeouts of their own
+ * by implementing {@link TimeLimited}. An execution that takes longer than the {@linkplain #withDeadline(Duration) deadline}
+ * fails with a {@link ReactorException} caused by a {@link TimeoutException}.
+ *
+ * <p>
+ * One daemon thread does the watching, for as long as there are executions to watch. It checks every tenth of
+ * the timeout, but at least every second.
+ *
+ * <pre>
+ * reactor.setWatchdog(new Watchdog(Duration.ofSeconds(30)).onTimeout(Watchdog.Action.INTERRUPT).withDeadline(Duration.ofMinutes(5)));
+ * </pre>
+ */
+public final class Watchdog {
+    /**
+     * What to do about a task that runs longer than its timeout.
+     */
+    public enum Action {
+        /**
+         * Only report it.
+         */
+        REPORT,
+        /**
+         * Also interrupt the thread running it, which the task may or may not react to.
+         */
+        INTERRUPT,
+        /**
+         * Also interrupt the thread running it, and fail the task with a {@link TimeoutException} right away,
+         * as if it had thrown one, without waiting for it to return. Whatever it does afterward is ignored.
+         */
+        FAIL
+    }
+
+    private static final long MIN_TICK = TimeUnit.MILLISECONDS.toNanos(10), MAX_TICK = TimeUnit.SECONDS.toNanos(1);
+
+    private final long timeout;
+
+    private volatile Action action = Action.REPORT;
+
+    /**
+     * Deadline of each execution in nanoseconds, or 0 for none.
+     */
+    private volatile long deadline;
+
+    /**
+     * Tasks running now.
+     */
+    private final Set<Watch> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Executions going on now. Guarded by 'this'.
+     */
+    private final Map<ExecutionState,Execution> executions = new HashMap<>();
+
+    /**
+     * Guarded by 'this'.
+     */
+    private Thread thread;
+
+    /**
+     * @param timeout
+     *      How long a task may run before the watchdog steps in, unless it's {@link TimeLimited}.
+     */
+    public Watchdog(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Timeout must be positive: "+timeout);
+        this.timeout = timeout.toNanos();
+    }
+
+    /**
+     * Sets what to do about tasks that run longer than their timeout. {@link Action#REPORT} by default.
+     */
+    public Watchdog onTimeout(Action action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * Sets how long an execution may take in all. When it's over, the execution fails, and if the
+     * {@linkplain #onTimeout(Action) action} is more than {@link Action#REPORT}, the tasks still running are interrupted.
+     *
+     * @param deadline
+     *      Null for no deadline, which is the default.
+     */
+    public Watchdog withDeadline(Duration deadline) {
+        this.deadline = deadline!=null ? Math.max(1, deadline.toNanos()) : 0;
+        return this;
+    }
+
+    private final class Execution {
+        final Reactor reactor;
+        final ExecutionState state;
+        final long started = System.nanoTime();
+        boolean expired;
+
+        Execution(Reactor reactor, ExecutionState state) {
+            this.reactor = reactor;
+            this.state = state;
+        }
+    }
+
+    /**
+     * A task being run, from the point of view of the watchdog.
+     */
+    final class Watch {
+        private static final int RUNNING = 0, ENDED = 1, TIMED_OUT = 2;
+
+        final Reactor reactor;
+        final ExecutionState state;
+        final Reactor.Node node;
+        final Thread thread = Thread.currentThread();
+        final long started = System.nanoTime();
+        final long limit;
+
+        // guarded by 'this'
+        private int status = RUNNING;
+        private boolean reported, interrupted;
+
+        private Watch(Reactor reactor, ExecutionState state, Reactor.Node node) {
+            this.reactor = reactor;
+            this.state = state;
+            this.node = node;
+            Duration d = node.task instanceof TimeLimited ? ((TimeLimited) node.task).getTimeout() : null;
+            this.limit = d!=null ? d.toNanos() : timeout;
+        }
+
+        /**
+         * Called by the thread running the task when it returns.
+         *
+         * @return
+         *      false if the watchdog has already failed the task, in which case the outcome of the task is to be ignored.
+         */
+        boolean end() {
+            boolean won = claim();
+            synchronized (this) {
+                if (interrupted)
+                    Thread.interrupted();   // the interrupt was meant for the task, not whatever the thread does next
+            }
+            return won;
+        }
+
+        /**
+         * Called by whoever else ends the task on its behalf, such as a {@linkplain Speculation speculative copy}.
+         *
+         * @return
+         *      false if the watchdog has already failed the task.
+         */
+        boolean claim() {
+            running.remove(this);
+            synchronized (this) {
+                if (status==RUNNING)
+                    status = ENDED;
+                return status==ENDED;
+            }
+        }
+
+        /**
+         * Reports the task, interrupts it, and claims it for failing, as the action says.
+         *
+         * @return
+         *      the failure to report the task with if it's been claimed, or else null.
+         */
+        private synchronized TimeoutException timedOut(long now) {
+            if (status!=RUNNING)    return null;
+            Action a = action;
+            if (!reported) {
+                reported = true;
+                TimeoutException x = stuck(TimeUnit.NANOSECONDS.toMillis(now-started));
+                LOGGER.log(Level.WARNING, x.getMessage(), x);
+            }
+            if (a==Action.REPORT || interrupted)    return null;
+            interrupt();
+            if (a!=Action.FAIL)     return null;
+            status = TIMED_OUT;
+            return stuck(TimeUnit.NANOSECONDS.toMillis(limit));
+        }
+
+        private synchronized void interrupt() {
+            if (status==RUNNING && !interrupted) {
+                interrupted = true;
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Describes the task as stuck where the thread is now.
+         */
+        private TimeoutException stuck(long millis) {
+            TimeoutException x = new TimeoutException("Task "+node.task.getDisplayName()+" has been running for "
+                    +millis+"ms on "+thread.getName());
+            x.setStackTrace(thread.getStackTrace());
+            return x;
+        }
+    }
+
+    /**
+     * Starts watching an execution.
+     */
+    synchronized void begin(Reactor reactor, final ExecutionState s) {
+        executions.put(s, new Execution(reactor, s));
+        s.done.whenComplete((v, x) -> end(s));
+        if (thread==null) {
+            thread = new Thread(this::watch, "Reactor watchdog");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private synchronized void end(ExecutionState s) {
+        executions.remove(s);
+    }
+
+    /**
+     * Starts watching a task that the current thread is about to run.
+     */
+    Watch start(Reactor reactor, ExecutionState s, Reactor.Node n) {
+        Watch w = new Watch(reactor, s, n);
+        running.add(w);
+        return w;
+    }
+
+    private void watch() {
+        while (true) {
+            long d = deadline;
+            long tick = Math.max(MIN_TICK, Math.min(MAX_TICK, Math.min(timeout, d>0 ? d : Long.MAX_VALUE)/10));
+            try {
+                TimeUnit.NANOSECONDS.sleep(tick);
+            } catch (InterruptedException e) {
+                // nobody but us knows this thread
+            }
+
+            long now = System.nanoTime();
+            for (Watch w : running) {
+                if (now-w.started<w.limit)  continue;
+                TimeoutException x = w.timedOut(now);
+                if (x!=null) {
+                    running.remove(w);
+                    w.reactor.finishFor(w.state, w.node, x);
+                }
+            }
+
+            List<Execution> expired = new ArrayList<>();
+            synchronized (this) {
+                if (executions.isEmpty()) {
+                    thread = null;
+                    return;
+                }
+                d = deadline;
+                for (Execution e : executions.values()) {
+                    if (d>0 && !e.expired && now-e.started>=d) {
+                        e.expired = true;
+                        expired.add(e);
+                    }
+                }
+            }
+            for (Execution e : expired) {
+                if (action!=Action.REPORT) {
+                    for (Watch w : running)
+                        if (w.state==e.state)
+                            w.interrupt();
+                }
+                e.reactor.expired(e.state, new TimeoutException("Execution has taken longer than "
+                        +TimeUnit.NANOSECONDS.toMillis(d)+"ms"));
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(Watchdog.class.getName());
+}
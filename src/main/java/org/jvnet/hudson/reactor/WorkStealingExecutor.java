@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Executor} for {@link Reactor#execute(Executor, ReactorListener)} that keeps a deque per worker thread
+ * instead of one shared queue.
+ *
+ * <p>
+ * Tasks that become ready when a task completes are pushed onto the deque of the worker that ran it,
+ * and that worker continues with the most recently pushed one, so whatever the completed task left in the cache
+ * is still there. Idle workers steal from the other end of busy workers' deques. Submissions from other threads,
+ * such as the initial ones from {@link Reactor#execute(Executor, ReactorListener)}, go through the shared queue.
+ *
+ * <p>
+ * Workers are not compensated when a task blocks, so this works best for CPU-bound graphs.
+ * When {@linkplain Reactor#prioritizeCriticalPath(CostModel) dispatching by critical path}, the order is decided by
+ * the reactor, and this executor only saves the contention on the shared queue.
+ */
+public class WorkStealingExecutor implements Executor {
+    private final ForkJoinPool pool;
+
+    /**
+     * Uses as many workers as there are processors.
+     */
+    public WorkStealingExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingExecutor(int parallelism) {
+        final AtomicInteger count = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("Reactor worker #"+count.incrementAndGet());
+            return t;
+        }, null, false); // LIFO for the owner, FIFO for thieves
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Thread t = Thread.currentThread();
+        if (t instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)t).getPool()==pool)
+            new Job(command).fork(); // our own deque
+        else
+            pool.execute(new Job(command));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stops accepting new tasks. Those already submitted still run.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkStealingExecutor["+pool+"]";
+    }
+
+    /**
+     * Unlike {@link ForkJoinTask#adapt(Runnable)}, doesn't swallow exceptions nobody is going to join for.
+     */
+    private static final class Job extends ForkJoinTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Runnable command;
+
+        private Job(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        protected boolean exec() {
+            try {
+                command.run();
+            } catch (Throwable x) {
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, x);
+            }
+            return true;
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        public String toString() {
+            return command.toString();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveConcurrencyTest extends TestCase {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Run times that don't go up with the concurrency let the limit climb to the maximum.
+     */
+    public void testGrowsWhileRunTimeHolds() {
+        AdaptiveConcurrency c = new AdaptiveConcurrency(1, 32);
+        for (int i=0; i<10000; i++)
+            c.sample(MS, c.getLimit());
+        assertEquals(32, c.getLimit());
+    }
+
+    /**
+     * With four tasks' worth of capacity, the limit settles a few tasks above four.
+     */
+    public void testSettlesWhereRunTimeRises() {
+        AdaptiveConcurrency c = new AdaptiveConcurrency(1, 256);
+        for (int i=0; i<100000; i++) {
+            int l = c.getLimit();
+            c.sample((long)(MS*Math.max(1, l/4.0)), l);
+        }
+        assertTrue(c.toString(), c.getLimit()>=5 && c.getLimit()<=12);
+    }
+
+    /**
+     * Without enough tasks ready to use it, the limit doesn't grow.
+     */
+    public void testStaysWithinReadyWidth() {
+        AdaptiveConcurrency c = new AdaptiveConcurrency(4, 32);
+        for (int i=0; i<10000; i++)
+            c.sample(MS, 2);
+        assertEquals(4, c.getLimit());
+    }
+
+    public void testExecute() throws Exception {
+        final AtomicInteger running = new AtomicInteger(), peak = new AtomicInteger();
+        final Set<String> ran = ConcurrentHashMap.newKeySet();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        for (int i=0; i<200; i++) {
+            final String name = "t"+i;
+            g.add(name, reactor -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(1);
+                running.decrementAndGet();
+                ran.add(name);
+            });
+        }
+        Reactor r = new Reactor(g);
+        AdaptiveConcurrency c = new AdaptiveConcurrency(2, 8);
+        r.limitConcurrency(c);
+
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.execute(es);
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(200, ran.size());
+        assertTrue("peak="+peak, peak.get()<=8);
+        assertTrue(c.toString(), c.getLimit()>2);
+    }
+
+    /**
+     * The adaptive permit is taken after the tags, so a task waiting for it mustn't hold on to its tags.
+     */
+    public void testWithResourceLimits() throws Exception {
+        final Set<String> ran = ConcurrentHashMap.newKeySet();
+        SessionTest.TestTask work = (reactor, id) -> {
+            Thread.sleep(50);
+            ran.add(id);
+        };
+        List<Task> tasks = new ArrayList<>();
+        // u takes the overall permit first, so t gets its tag and then has to wait
+        tasks.add(new SessionTest.TaskImpl("->u->", work));
+        tasks.add(new SessionTest.TaggedTaskImpl("->t->", work, "a"));
+        Reactor r = new Reactor(TaskBuilder.fromTasks(tasks));
+        r.limitConcurrency("a", 1);
+        r.limitConcurrency(new AdaptiveConcurrency(1, 1));
+
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.executeAsync(es, ReactorListener.NOOP).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        } finally {
+            es.shutdownNow();
+        }
+        assertEquals(2, ran.size());
+    }
+}
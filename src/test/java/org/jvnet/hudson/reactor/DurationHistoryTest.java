@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class DurationHistoryTest extends TestCase {
+    /**
+     * Durations observed in one execution come back as cost estimates in the next one.
+     */
+    public void testRoundTrip() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("fast", Executable.NOOP);
+        g.followedBy().add("slow", reactor -> Thread.sleep(50));
+        g.followedBy().add("medium", reactor -> Thread.sleep(10));
+
+        DurationHistory history = new DurationHistory();
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            new Reactor(g).execute(es, history);
+        } finally {
+            es.shutdown();
+        }
+
+        File f = File.createTempFile("durations", ".bin");
+        try {
+            history.save(f);
+            DurationHistory loaded = DurationHistory.load(f);
+            assertTrue(loaded.getDuration("slow")>=50000);
+            assertTrue(loaded.getDuration("slow")>loaded.getDuration("fast"));
+            assertEquals(loaded.getDuration("slow").longValue(), loaded.estimate(g.add("slow", Executable.NOOP).asTask()));
+            // unknown tasks are assumed to be typical
+            assertEquals(loaded.getDuration("medium").longValue(), loaded.estimate(g.add("new", Executable.NOOP).asTask()));
+        } finally {
+            f.delete();
+        }
+    }
+
+    public void testMissingFile() throws Exception {
+        DurationHistory h = DurationHistory.load(new File("no-such-file-"+System.nanoTime()));
+        assertNull(h.getDuration("anything"));
+        assertEquals(1, h.estimate(new TaskGraphBuilder().add("anything", Executable.NOOP).asTask()));
+    }
+
+    /**
+     * A display name too long to be written as is doesn't cost the rest of the history.
+     */
+    public void testLongName() throws Exception {
+        StringBuilder b = new StringBuilder();
+        for (int i=0; i<30000; i++)
+            b.append('\u20ac'); // three bytes each
+        String name = b.toString();
+        DurationHistory h = new DurationHistory();
+        run(h, name);
+        run(h, "short");
+
+        h = roundTrip(h);
+        assertNotNull(h.getDuration(name));
+        assertNotNull(h.getDuration("short"));
+        // names that only differ past the part that's kept are still told apart
+        assertNull(h.getDuration(name.substring(1)+"x"));
+    }
+
+    /**
+     * Tasks that stop running are eventually forgotten.
+     */
+    public void testForgetsTasksThatDontRun() throws Exception {
+        DurationHistory h = new DurationHistory();
+        run(h, "gone");
+        for (int i=0; i<=DurationHistory.MAX_AGE; i++) {
+            run(h, "kept");
+            h = roundTrip(h);
+            assertNotNull(h.getDuration("kept"));
+            assertEquals(i<DurationHistory.MAX_AGE, h.getDuration("gone")!=null);
+        }
+    }
+
+    private static void run(DurationHistory h, String name) {
+        Task t = new TaskGraphBuilder().add(name, Executable.NOOP).asTask();
+        h.onTaskStarted(t);
+        h.onTaskCompleted(t);
+    }
+
+    private static DurationHistory roundTrip(DurationHistory h) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        h.write(bytes);
+        return DurationHistory.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ReactorEventsTest extends TestCase {
+    public void testEvents() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("first", Executable.NOOP);
+        g.followedBy().notFatal().add("failing", reactor -> {
+            throw new Exception();
+        });
+
+        File f = File.createTempFile("reactor", ".jfr");
+        List<RecordedEvent> events = new ArrayList<>();
+        try {
+            try (Recording r = new Recording()) {
+                r.enable("org.jvnet.hudson.reactor.Task").withThreshold(Duration.ZERO);
+                r.enable("org.jvnet.hudson.reactor.Milestone").withThreshold(Duration.ZERO);
+                r.enable("org.jvnet.hudson.reactor.AddAll").withThreshold(Duration.ZERO);
+                r.start();
+                ExecutorService es = Executors.newCachedThreadPool();
+                try {
+                    new Reactor(g).execute(es);
+                } finally {
+                    es.shutdown();
+                }
+                r.stop();
+                r.dump(f.toPath());
+            }
+            events.addAll(RecordingFile.readAllEvents(f.toPath()));
+        } finally {
+            f.delete();
+        }
+
+        List<String> tasks = new ArrayList<>();
+        int milestones = 0, batches = 0;
+        for (RecordedEvent e : events) {
+            switch (e.getEventType().getName()) {
+            case "org.jvnet.hudson.reactor.Task":
+                tasks.add(e.getString("displayName")+":"+e.getString("outcome"));
+                assertTrue(e.getDuration("queueDelay").toNanos()>0);
+                break;
+            case "org.jvnet.hudson.reactor.Milestone":
+                milestones++;
+                break;
+            case "org.jvnet.hudson.reactor.AddAll":
+                assertEquals(1, e.getInt("tasks")); // the constructor adds them one at a time
+                assertFalse(e.getBoolean("executing"));
+                batches++;
+                break;
+            }
+        }
+        assertEquals(2, tasks.size());
+        assertTrue(tasks.toString(), tasks.contains("first:completed"));
+        assertTrue(tasks.toString(), tasks.contains("failing:failed"));
+        assertEquals(2, milestones);
+        assertEquals(2, batches);
+    }
+
+    /**
+     * Without a recording, the events don't start up Flight Recorder.
+     */
+    public void testDisabledEventsDontLoadJfr() throws Exception {
+        ProcessBuilder pb = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Xlog:class+load=info", "-cp", System.getProperty("java.class.path"), NoRecording.class.getName());
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = p.getInputStream()) {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len=in.read(buf))>=0)
+                out.write(buf, 0, len);
+        }
+        assertTrue(p.waitFor(60, TimeUnit.SECONDS));
+        String log = out.toString(StandardCharsets.UTF_8.name());
+        assertEquals(log, 0, p.exitValue());
+        assertTrue(log, log.contains(Reactor.class.getName()+" "));
+        assertFalse(log, log.contains("jdk.jfr.internal"));
+    }
+
+    public static class NoRecording {
+        public static void main(String[] args) throws Exception {
+            TaskGraphBuilder g = new TaskGraphBuilder();
+            g.add("first", Executable.NOOP);
+            g.followedBy().add("second", Executable.NOOP);
+            ExecutorService es = Executors.newSingleThreadExecutor();
+            try {
+                new Reactor(g).execute(es);
+            } finally {
+                es.shutdown();
+            }
+        }
+    }
+}
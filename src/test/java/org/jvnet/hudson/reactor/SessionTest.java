@@ -27,16 +27,32 @@ import junit.framework.TestCase;
 import org.apache.commons.io.output.TeeWriter;
 import org.jvnet.hudson.reactor.TaskGraphBuilder.Handle;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +72,10 @@ public class SessionTest extends TestCase {
     }
 
     private String execute(Reactor s, ReactorListener... addedListeners) throws Exception {
+        return execute(s, Executors.newCachedThreadPool(), addedListeners);
+    }
+
+    private String execute(Reactor s, Executor e, ReactorListener... addedListeners) throws Exception {
         StringWriter sw = new StringWriter();
         System.out.println("----");
         final PrintWriter w = new PrintWriter(new TeeWriter(sw,new OutputStreamWriter(System.out)),true);
@@ -88,7 +108,7 @@ public class SessionTest extends TestCase {
             listeners.add(0, listener);
             listener = new ReactorListener.Aggregator(listeners);
         }
-        s.execute(Executors.newCachedThreadPool(), listener);
+        s.execute(e, listener);
         return sw.toString();
     }
 
@@ -307,6 +327,33 @@ public class SessionTest extends TestCase {
                 "Ended t4\n", result);
     }
 
+    /**
+     * Adding tasks one by one during the execution, each with its own new milestone.
+     */
+    public void testManyDynamicTasks() throws Exception {
+        final int count = 5000;
+        final AtomicInteger ran = new AtomicInteger();
+        final Reactor s = buildSession("->t1->m1", new TestTask() {
+            @Override
+            public void run(Reactor session, String id) {
+                if (id.equals("t1")) {
+                    for (int i=0; i<count; i++)
+                        session.add(new TaskImpl("m1->d"+i+"->dm"+i, this));
+                } else {
+                    ran.incrementAndGet();
+                }
+            }
+        });
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            s.execute(es);
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(count+1, s.size());
+        assertEquals(count, ran.get());
+    }
+
     /**
      * Milestones that no one attains should be attained by default.
      */
@@ -316,6 +363,143 @@ public class SessionTest extends TestCase {
         assertEqualsIgnoreNewlineStyle("Attained m1\nStarted t1\nEnded t1\nAttained m2\n",result);
     }
 
+    /**
+     * Builders are discovered at the same time, but their tasks are added in order.
+     */
+    public void testParallelDiscovery() throws Exception {
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        List<TaskBuilder> builders = new ArrayList<>();
+        for (final String spec : Arrays.asList("->t1->m1", "m1->t2->m2", "m2->t3->")) {
+            builders.add(new TaskBuilder() {
+                @Override
+                public Iterable<? extends Task> discoverTasks(Reactor reactor) throws IOException {
+                    // every builder waits for the others to start, so this only completes if they run in parallel
+                    allStarted.countDown();
+                    try {
+                        assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return Collections.singleton(new TaskImpl(spec, createNoOp()));
+                }
+            });
+        }
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            Reactor r = new Reactor(builders, es);
+            List<String> order = new ArrayList<>();
+            for (Reactor.Node n : r)
+                order.add(n.task.getDisplayName());
+            assertEquals(Arrays.asList("t1", "t2", "t3"), order);
+            assertEqualsIgnoreNewlineStyle("Started t1\nEnded t1\nAttained m1\nStarted t2\nEnded t2\nAttained m2\nStarted t3\nEnded t3\n", execute(r));
+
+            builders.set(1, new TaskBuilder() {
+                @Override
+                public Iterable<? extends Task> discoverTasks(Reactor reactor) throws IOException {
+                    throw new IOException("second");
+                }
+            });
+            builders.set(2, new TaskBuilder() {
+                @Override
+                public Iterable<? extends Task> discoverTasks(Reactor reactor) throws IOException {
+                    throw new IOException("third");
+                }
+            });
+            try {
+                new Reactor(builders.subList(1, 3), es);
+                fail();
+            } catch (IOException x) {
+                assertEquals("second", x.getMessage());
+                assertEquals("third", x.getSuppressed()[0].getMessage());
+            }
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Tasks start while builders are still discovering, but milestones wait for the discovery to complete.
+     */
+    public void testStreamingDiscovery() throws Exception {
+        final CountDownLatch t1Ran = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final TestTask work = (reactor, id) -> {
+            order.add(id);
+            if (id.equals("t1"))
+                t1Ran.countDown();
+        };
+        TaskBuilder fast = TaskBuilder.fromTasks(Collections.singleton(new TaskImpl("->t1->m1", work)));
+        TaskBuilder slow = new TaskBuilder() {
+            @Override
+            public Iterable<? extends Task> discoverTasks(Reactor reactor) throws IOException {
+                try {
+                    // only returns once t1 has run, which proves that the execution overlaps with the discovery
+                    assertTrue(t1Ran.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                order.add("discovered");
+                return Arrays.asList(new TaskImpl("->t2->m1", work), new TaskImpl("m1->t3->", work));
+            }
+        };
+
+        Reactor r = new Reactor();
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.execute(es, ReactorListener.NOOP, Arrays.asList(fast, slow), es);
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(3, r.size());
+        assertEquals("t1", order.get(0));
+        assertEquals("discovered", order.get(1));
+        // m1 isn't attained until t2, which was discovered later, is done
+        assertEquals(Arrays.asList("t2", "t3"), order.subList(2, 4));
+    }
+
+    public void testStreamingDiscoveryFailure() throws Exception {
+        TaskBuilder broken = new TaskBuilder() {
+            @Override
+            public Iterable<? extends Task> discoverTasks(Reactor reactor) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            new Reactor().execute(es, ReactorListener.NOOP, Collections.singleton(broken), es);
+            fail();
+        } catch (ReactorException x) {
+            assertEquals("broken", x.getCause().getMessage());
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Cycles and milestones that no one attains are reported before the execution.
+     */
+    public void testValidate() throws Exception {
+        Reactor s = buildSession("m2->t1->m1 m1->t2->m2 m2->t3-> ->t4->m3 m4->t5->", (session, id) -> { });
+        GraphValidation v = s.validate();
+        assertFalse(v.toString(), v.isValid());
+        assertEquals(1, v.getCycles().size());
+        assertEquals(Set.of("t1", "m1", "t2", "m2"), Set.copyOf(v.getCycles().get(0)));
+        assertEquals(Collections.singletonList(new MilestoneImpl("m4")), v.getUnattainedMilestones());
+
+        assertTrue(buildSession("->t1->m1 m1->t2->", (session, id) -> { }).validate().isValid());
+    }
+
+    /**
+     * Validation doesn't recurse, so long chains are fine.
+     */
+    public void testValidateLongChain() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("t0", Executable.NOOP);
+        for (int i=1; i<100000; i++)
+            g.followedBy().add("t"+i, Executable.NOOP);
+        assertTrue(new Reactor(g).validate().isValid());
+    }
+
     /**
      * Tasks that are non-fatal.
      */
@@ -335,6 +519,624 @@ public class SessionTest extends TestCase {
                 "Attained 2nd\n",result);
     }
 
+    /**
+     * With a single thread, the task at the head of the longest chain goes first.
+     */
+    public void testCriticalPathFirst() throws Exception {
+        Reactor s = buildSession("->b-> ->c-> ->a1->ma ma->a2->mb mb->a3->", createNoOp());
+        s.prioritizeCriticalPath(CostModel.UNIT);
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            assertEqualsIgnoreNewlineStyle(
+                    "Started a1\nEnded a1\nAttained ma\n" +
+                    "Started a2\nEnded a2\nAttained mb\n" +
+                    "Started b\nEnded b\n" +
+                    "Started c\nEnded c\n" +
+                    "Started a3\nEnded a3\n", execute(s, es));
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * A listener failing while the roots are being queued up fails the execution like any other time.
+     */
+    public void testCriticalPathListenerFailure() throws Exception {
+        Reactor s = buildSession("->a-> ->b-> ->c->", createNoOp());
+        s.prioritizeCriticalPath(CostModel.UNIT);
+        final AtomicInteger ready = new AtomicInteger();
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            s.execute(es, new ReactorListener() {
+                @Override
+                public void onTaskReady(Task t) {
+                    if (ready.incrementAndGet()==2)
+                        throw new IllegalStateException("second root");
+                }
+            });
+            fail();
+        } catch (ReactorException x) {
+            assertEquals("second root", x.getCause().getMessage());
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Costs, not just the number of tasks, decide which path is critical.
+     */
+    public void testCriticalPathByCost() throws Exception {
+        Reactor s = buildSession("->short->m m->tail-> ->slow->", createNoOp());
+        s.prioritizeCriticalPath(t -> t.getDisplayName().equals("slow") ? 10 : 1);
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(normalizeLineEnds(execute(s, es)).startsWith("Started slow\n"));
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * A worker continues with the task it made ready last.
+     */
+    public void testWorkStealingContinuesLifo() throws Exception {
+        Reactor s = buildSession("->t1->m m->b1-> m->b2-> m->b3->", createNoOp());
+        WorkStealingExecutor es = new WorkStealingExecutor(1);
+        try {
+            assertEqualsIgnoreNewlineStyle(
+                    "Started t1\nEnded t1\nAttained m\n" +
+                    "Started b3\nEnded b3\n" +
+                    "Started b2\nEnded b2\n" +
+                    "Started b1\nEnded b1\n", execute(s, es));
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Tasks run on virtual threads, no more than the cap at a time.
+     */
+    public void testVirtualThreads() throws Exception {
+        if (!VirtualThreadExecutor.isSupported()) {
+            try {
+                new VirtualThreadExecutor(2);
+                fail();
+            } catch (UnsupportedOperationException x) {
+                return; // as expected
+            }
+        }
+
+        final AtomicInteger running = new AtomicInteger(), peak = new AtomicInteger();
+        Reactor s = buildSession("->t1->m m->t2-> m->t3-> m->t4-> m->t5->", (reactor, id) -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            assertTrue(Thread.currentThread().getName().startsWith("Reactor virtual thread #"));
+        });
+        try (VirtualThreadExecutor es = new VirtualThreadExecutor(2)) {
+            s.execute(es);
+            assertEquals(0, es.getPinnedCount());
+        }
+        assertEquals(2, peak.get());
+    }
+
+    /**
+     * Only the pinning of the executor's own threads is reported.
+     */
+    public void testVirtualThreadPinning() throws Exception {
+        if (!VirtualThreadExecutor.isSupported())   return;
+
+        final Object lock = new Object();
+        Runnable pin = () -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Reactor s = buildSession("->t1->", (reactor, id) -> pin.run());
+        try (VirtualThreadExecutor es = new VirtualThreadExecutor(0, Duration.ofMillis(20))) {
+            // a virtual thread of someone else's
+            ((Thread) Thread.class.getMethod("startVirtualThread", Runnable.class).invoke(null, pin)).join();
+            s.execute(es);
+            // the events reach the stream about once a second
+            for (int i=0; i<100 && es.getPinnedCount()==0; i++)
+                Thread.sleep(100);
+            Thread.sleep(500);
+            assertEquals(1, es.getPinnedCount());
+        }
+    }
+
+    /**
+     * Reactors can be chained on a single thread, since nothing waits for them.
+     */
+    public void testExecuteAsync() throws Exception {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        TestTask work = (reactor, id) -> order.add(id);
+        Reactor first = buildSession("->a1->m a1,m->a2->", work);
+        Reactor second = buildSession("->b1->", work);
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            first.executeAsync(es, ReactorListener.NOOP)
+                    .thenCompose(v -> second.executeAsync(es, ReactorListener.NOOP))
+                    .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(Arrays.asList("a1", "a2", "b1"), order);
+    }
+
+    public void testExecuteAsyncFailure() throws Exception {
+        final Exception[] e = new Exception[1];
+        Reactor s = buildSession("->t1->m m->t2->", (reactor, id) -> {
+            throw e[0]=new IOException("Yep");
+        });
+        try {
+            s.executeAsync(Executors.newCachedThreadPool(), ReactorListener.NOOP).toCompletableFuture().get();
+            fail();
+        } catch (ExecutionException x) {
+            assertTrue(x.getCause() instanceof ReactorException);
+            assertSame(e[0],x.getCause().getCause());
+        }
+    }
+
+    /**
+     * A compiled plan runs the same graph many times, concurrently too.
+     */
+    public void testReusablePlan() throws Exception {
+        final Map<String,AtomicInteger> runs = new ConcurrentHashMap<>();
+        Reactor r = buildSession("->t1->m1 m1->t2->m2 m1->t3->m2 m2->t4->", (reactor, id) -> {
+            runs.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+        });
+        ReactorPlan plan = r.compile();
+        assertEquals(4, plan.size());
+
+        assertEqualsIgnoreNewlineStyle("Started t1\nEnded t1\nAttained m1\nStarted t2\nEnded t2\nStarted t3\nEnded t3\nAttained m2\nStarted t4\nEnded t4\n",
+                executePlan(plan));
+        assertEqualsIgnoreNewlineStyle("Started t1\nEnded t1\nAttained m1\nStarted t2\nEnded t2\nStarted t3\nEnded t3\nAttained m2\nStarted t4\nEnded t4\n",
+                executePlan(plan));
+
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> all = new ArrayList<>();
+            for (int i=0; i<50; i++)
+                all.add(plan.executeAsync(es, ReactorListener.NOOP).toCompletableFuture());
+            for (CompletableFuture<Void> f : all)
+                f.get(10, TimeUnit.SECONDS);
+        } finally {
+            es.shutdown();
+        }
+        for (String t : Arrays.asList("t1", "t2", "t3", "t4"))
+            assertEquals(52, runs.get(t).get());
+
+        try {
+            r.add(new TaskImpl("->t5->", createNoOp()));
+            fail();
+        } catch (IllegalStateException x) {
+            // expected
+        }
+        try {
+            r.execute(Runnable::run);
+            fail();
+        } catch (IllegalStateException x) {
+            // expected
+        }
+    }
+
+    private String executePlan(ReactorPlan plan) throws Exception {
+        final StringBuilder b = new StringBuilder();
+        // a single thread, so that the order is predictable
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            plan.execute(es, new ReactorListener() {
+                @Override
+                public synchronized void onTaskStarted(Task t) {
+                    b.append("Started ").append(t.getDisplayName()).append('\n');
+                }
+
+                @Override
+                public synchronized void onTaskCompleted(Task t) {
+                    b.append("Ended ").append(t.getDisplayName()).append('\n');
+                }
+
+                @Override
+                public synchronized void onAttained(Milestone milestone) {
+                    b.append("Attained ").append(milestone).append('\n');
+                }
+            });
+        } finally {
+            es.shutdown();
+        }
+        return b.toString();
+    }
+
+    /**
+     * Milestones are attained by the thread that completes them, without going through the executor.
+     */
+    public void testMilestonesAreNotSubmitted() throws Exception {
+        Reactor s = buildSession("m0->t1->m1 m1->t2->m2 m1,m2->t3->m3", createNoOp());
+        final AtomicInteger submissions = new AtomicInteger();
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            s.execute(r -> {
+                submissions.incrementAndGet();
+                es.execute(r);
+            });
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(3, submissions.get());
+    }
+
+    /**
+     * Listing the same milestone twice shouldn't make a task wait for it twice.
+     */
+    public void testDuplicatePrerequisites() throws Exception {
+        Reactor s = buildSession("->t1->m1,m1 m1,m1->t2->", createNoOp());
+        assertEqualsIgnoreNewlineStyle("Started t1\nEnded t1\nAttained m1\nStarted t2\nEnded t2\n", execute(s));
+    }
+
+    /**
+     * Tasks sharing a limited resource tag don't run more than the limit at once, while the others aren't held back.
+     */
+    public void testResourceLimits() throws Exception {
+        final AtomicInteger disk = new AtomicInteger(), net = new AtomicInteger(), peakDisk = new AtomicInteger(), peakNet = new AtomicInteger();
+        final Set<String> ran = ConcurrentHashMap.newKeySet();
+        TestTask work = (reactor, id) -> {
+            boolean d = id.startsWith("d"), n = id.startsWith("n") || id.startsWith("dn");
+            if (d)  peakDisk.accumulateAndGet(disk.incrementAndGet(), Math::max);
+            if (n)  peakNet.accumulateAndGet(net.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            if (d)  disk.decrementAndGet();
+            if (n)  net.decrementAndGet();
+            ran.add(id);
+        };
+        List<Task> tasks = new ArrayList<>();
+        for (int i=0; i<4; i++) {
+            tasks.add(new TaggedTaskImpl("->d"+i+"->", work, "disk"));
+            tasks.add(new TaggedTaskImpl("->n"+i+"->", work, "net"));
+            tasks.add(new TaggedTaskImpl("->dn"+i+"->", work, "net", "disk"));
+            tasks.add(new TaskImpl("->t"+i+"->", work));
+        }
+        Reactor s = new Reactor(TaskBuilder.fromTasks(tasks));
+        s.limitConcurrency("disk", 1);
+        s.limitConcurrency("net", 2);
+
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            s.execute(es);
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(16, ran.size());
+        assertEquals(1, peakDisk.get());
+        assertTrue(peakNet.get()<=2);
+
+        try {
+            s.limitConcurrency("disk", 2);
+            fail();
+        } catch (IllegalStateException e) {
+            // already executed
+        }
+    }
+
+    /**
+     * A task that has to wait for one of its tags doesn't hold on to the others in the mean time,
+     * or else it would be waiting for itself once woken.
+     */
+    public void testResourceLimitsDontHoldWhileWaiting() throws Exception {
+        final Set<String> ran = ConcurrentHashMap.newKeySet();
+        TestTask work = (reactor, id) -> {
+            // x holds on to b until y is waiting for it
+            if (id.equals("x"))
+                Thread.sleep(200);
+            ran.add(id);
+        };
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new TaggedTaskImpl("->x->", work, "b"));
+        tasks.add(new TaskImpl("->z->mz", work));
+        tasks.add(new TaggedTaskImpl("mz->y->", work, "a", "b"));
+        Reactor s = new Reactor(TaskBuilder.fromTasks(tasks));
+        s.limitConcurrency("a", 1);
+        s.limitConcurrency("b", 1);
+
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            s.executeAsync(es, ReactorListener.NOOP).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        } finally {
+            es.shutdownNow();
+        }
+        assertEquals(3, ran.size());
+    }
+
+    /**
+     * Cheap tasks are submitted in batches, but still reported and failed one by one.
+     */
+    public void testCoalesceCheapTasks() throws Exception {
+        final int n = 1000;
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle bad = g.notFatal().add("bad", reactor -> {
+            throw new IllegalArgumentException();   // simulated failure
+        });
+        g.requires(bad).add("afterBad", reactor -> { });
+        g.add("slow", reactor -> Thread.sleep(10));
+        for (int i=0; i<n; i++)
+            g.add("t"+i, reactor -> { });
+        Reactor r = new Reactor(g);
+        r.coalesceCheapTasks(t -> t.getDisplayName().equals("slow") ? 10 : 0, 0);
+
+        final AtomicInteger submissions = new AtomicInteger(), started = new AtomicInteger(),
+                completed = new AtomicInteger(), failed = new AtomicInteger();
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            r.execute(c -> {
+                submissions.incrementAndGet();
+                es.execute(c);
+            }, new ReactorListener() {
+                @Override
+                public void onTaskStarted(Task t) {
+                    started.incrementAndGet();
+                }
+
+                @Override
+                public void onTaskCompleted(Task t) {
+                    completed.incrementAndGet();
+                }
+
+                @Override
+                public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+                    assertEquals("bad", t.getDisplayName());
+                    assertFalse(fatal);
+                    failed.incrementAndGet();
+                }
+            });
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(n+3, started.get());
+        assertEquals(n+2, completed.get());
+        assertEquals(1, failed.get());
+        assertTrue("submissions="+submissions, submissions.get()<n/10);
+    }
+
+    public void testCoalescedFatalFailure() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle bad = g.add("bad", reactor -> {
+            throw new IllegalArgumentException();   // simulated failure
+        });
+        g.requires(bad).add("never", reactor -> fail());
+        Reactor r = new Reactor(g);
+        r.coalesceCheapTasks(CostModel.UNIT, 1);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            r.execute(es);
+            fail();
+        } catch (ReactorException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * A fused chain runs on the thread that started it, going back to the executor every so many tasks.
+     */
+    public void testFuseChains() throws Exception {
+        assertEquals(1, executeChain(50, 100));
+        assertEquals(5, executeChain(50, 9));
+        assertEquals(50, executeChain(50, 0));
+    }
+
+    /**
+     * @return
+     *      the number of submissions to the executor.
+     */
+    private int executeChain(int length, int depth) throws Exception {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        for (int i=0; i<length; i++) {
+            final String name = "t"+i;
+            g.followedBy().add(name, reactor -> {
+                threads.add(Thread.currentThread());
+                order.add(name);
+            });
+        }
+        Reactor r = new Reactor(g);
+        r.fuseChains(depth);
+        final AtomicInteger submissions = new AtomicInteger();
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            r.execute(c -> {
+                submissions.incrementAndGet();
+                es.execute(c);
+            });
+        } finally {
+            es.shutdown();
+        }
+        assertEquals(length, order.size());
+        for (int i=0; i<length; i++)
+            assertEquals("t"+i, order.get(i));
+        if (submissions.get()==1)
+            assertEquals(1, threads.size());
+        return submissions.get();
+    }
+
+    /**
+     * After a fatal failure, tasks already handed to the executor are dropped without running, and reported.
+     */
+    public void testFatalFailureSkipsQueuedTasks() throws Exception {
+        final AtomicInteger ran = new AtomicInteger();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle bad = g.add("bad", reactor -> {
+            throw new IllegalStateException();   // simulated failure
+        });
+        g.requires(bad).add("after", reactor -> ran.incrementAndGet());
+        for (int i=0; i<100; i++)
+            g.add("t"+i, reactor -> ran.incrementAndGet());
+
+        // run the failing task first, and then whatever was submitted along with it
+        final List<Runnable> submitted = new ArrayList<>();
+        CompletableFuture<Void> f = new Reactor(g).executeAsync(submitted::add, ReactorListener.NOOP).toCompletableFuture();
+        assertEquals(101, submitted.size());
+        for (Runnable r : submitted)
+            if (r.toString().equals("Task:bad"))
+                r.run();
+        for (Runnable r : submitted)
+            r.run();
+
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException x) {
+            ReactorException e = (ReactorException) x.getCause();
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(101, e.getSkippedTasks().size());
+
+            // the tasks don't travel with it
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(e);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                ReactorException copy = (ReactorException) in.readObject();
+                assertTrue(copy.getCause() instanceof IllegalStateException);
+                assertEquals(0, copy.getSkippedTasks().size());
+            }
+        }
+        assertEquals(0, ran.get());
+    }
+
+    public void testInterruptOnFatalFailure() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("hung", reactor -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        g.add("bad", reactor -> {
+            Thread.sleep(50);
+            throw new IllegalStateException();   // simulated failure
+        });
+        Reactor r = new Reactor(g);
+        r.interruptOnFatalFailure(true);
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.execute(es);
+            fail();
+        } catch (ReactorException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * A task that was claimed just before the execution failed is interrupted all the same.
+     */
+    public void testInterruptClaimedTask() throws Exception {
+        final CountDownLatch claimed = new CountDownLatch(1), release = new CountDownLatch(1), done = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("held", reactor -> {
+            interrupted.set(Thread.currentThread().isInterrupted());
+            done.countDown();
+        });
+        g.add("bad", reactor -> {
+            claimed.await();
+            throw new IllegalStateException();   // simulated failure
+        });
+        Reactor r = new Reactor(g);
+        r.interruptOnFatalFailure(true);
+        ReactorListener holder = new ReactorListener() {
+            @Override
+            public void onTaskStarted(Task t) {
+                if (!t.getDisplayName().equals("held"))     return;
+                claimed.countDown();
+                // keep the interrupt for the task to see
+                boolean i = false;
+                while (true) {
+                    try {
+                        release.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        i = true;
+                    }
+                }
+                if (i)
+                    Thread.currentThread().interrupt();
+            }
+        };
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.executeAsync(es, holder).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException x) {
+            assertTrue(x.getCause() instanceof ReactorException);
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(interrupted.get());
+        } finally {
+            release.countDown();
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Densely connected layers completing concurrently must still run every task exactly once,
+     * and only after all of its prerequisites.
+     */
+    public void testFanInUnderContention() throws Exception {
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            assertFanIn(es);
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    public void testFanInWorkStealing() throws Exception {
+        WorkStealingExecutor es = new WorkStealingExecutor(8);
+        try {
+            assertFanIn(es);
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    private void assertFanIn(Executor es) throws Exception {
+        final int width = 50, depth = 4;
+        final Map<String,AtomicInteger> runs = new ConcurrentHashMap<>();
+        final Set<String> finished = ConcurrentHashMap.newKeySet();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        List<Handle> previous = new ArrayList<>();
+        for (int d=0; d<depth; d++) {
+            List<Handle> layer = new ArrayList<>();
+            for (int w=0; w<width; w++) {
+                final String name = d+"/"+w;
+                final List<Handle> prerequisites = previous;
+                layer.add(g.requires(previous.toArray(new Milestone[0])).add(name, reactor -> {
+                    for (Handle h : prerequisites)
+                        assertTrue(name+" ran before "+h, finished.contains(h.asTask().getDisplayName()));
+                    runs.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+                    finished.add(name);
+                }));
+            }
+            previous = layer;
+        }
+
+        new Reactor(g).execute(es);
+        assertEquals(width*depth, runs.size());
+        for (AtomicInteger i : runs.values())
+            assertEquals(1, i.get());
+    }
+
     /**
      * Creates {@link TestTask} that waits for multiple tasks to be blocked together.
      */
@@ -382,6 +1184,20 @@ public class SessionTest extends TestCase {
         return new Reactor(TaskBuilder.fromTasks(tasks));
     }
 
+    static class TaggedTaskImpl extends TaskImpl implements ResourceTagged {
+        final Collection<String> tags;
+
+        TaggedTaskImpl(String id, TestTask work, String... tags) {
+            super(id, work);
+            this.tags = Arrays.asList(tags);
+        }
+
+        @Override
+        public Collection<String> getResourceTags() {
+            return tags;
+        }
+    }
+
     static class TaskImpl implements Task {
         final String id;
         final Collection<Milestone> requires;
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SpeculationTest extends TestCase {
+    private ExecutorService es;
+
+    @Override
+    protected void setUp() throws Exception {
+        es = Executors.newCachedThreadPool();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        es.shutdownNow();
+    }
+
+    /**
+     * The copy finishes first, so the dependents go ahead without waiting for the straggler, which is interrupted.
+     */
+    public void testCopyOvertakesStraggler() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        IdempotentTask slow = new IdempotentTask("slow", () -> {
+            if (attempts.incrementAndGet()==1) {
+                try {
+                    Thread.sleep(30000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        final AtomicBoolean ran = new AtomicBoolean();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.requires(slow.done).add("after", reactor -> ran.set(true));
+        Reactor r = new Reactor(g);
+        r.add(slow);
+        r.speculate(new Speculation(t -> 1, TimeUnit.MILLISECONDS).minimum(Duration.ofMillis(50)));
+
+        final AtomicInteger started = new AtomicInteger(), completed = new AtomicInteger();
+        long start = System.nanoTime();
+        r.execute(es, new ReactorListener() {
+            @Override
+            public void onTaskStarted(Task t) {
+                started.incrementAndGet();
+            }
+
+            @Override
+            public void onTaskCompleted(Task t) {
+                completed.incrementAndGet();
+            }
+        });
+        assertTrue(System.nanoTime()-start<TimeUnit.SECONDS.toNanos(10));
+        assertTrue(ran.get());
+        assertEquals(2, attempts.get());
+        assertEquals(2, started.get());
+        assertEquals(2, completed.get());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * The original finishes first after all, and the copy is interrupted.
+     */
+    public void testOriginalFinishesFirst() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        IdempotentTask slow = new IdempotentTask("slow", () -> {
+            try {
+                Thread.sleep(attempts.incrementAndGet()==1 ? 200 : 30000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        Reactor r = new Reactor(TaskBuilder.fromTasks(Collections.singleton(slow)));
+        r.speculate(new Speculation(t -> 1, TimeUnit.MILLISECONDS).minimum(Duration.ofMillis(50)));
+        r.execute(es);
+        assertEquals(2, attempts.get());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    public void testOnlyIdempotentTasks() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("slow", reactor -> {
+            attempts.incrementAndGet();
+            Thread.sleep(200);
+        });
+        Reactor r = new Reactor(g);
+        r.speculate(new Speculation(t -> 1, TimeUnit.MILLISECONDS).minimum(Duration.ofMillis(50)));
+        r.execute(es);
+        assertEquals(1, attempts.get());
+    }
+
+    interface Body {
+        void run() throws Exception;
+    }
+
+    private static class IdempotentTask implements Task, Idempotent {
+        final String name;
+        final Milestone done;
+        final Body body;
+
+        IdempotentTask(String name, Body body) {
+            this.name = name;
+            this.done = new MilestoneImpl(name);
+            this.body = body;
+        }
+
+        public Collection<? extends Milestone> requires() {
+            return Collections.emptySet();
+        }
+
+        public Collection<? extends Milestone> attains() {
+            return Collections.singleton(done);
+        }
+
+        public String getDisplayName() {
+            return name;
+        }
+
+        public boolean failureIsFatal() {
+            return true;
+        }
+
+        public void run(Reactor reactor) throws Exception {
+            body.run();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+import org.jvnet.hudson.reactor.TaskGraphBuilder.Handle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TimingListenerTest extends TestCase {
+    public void testTimings() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle first = g.add("first", reactor -> {
+            TaskGraphBuilder d = new TaskGraphBuilder();
+            d.add("dynamic", r -> Thread.sleep(30));
+            reactor.addAll(d.discoverTasks(reactor));
+        });
+        Handle slow = g.followedBy().add("slow", reactor -> Thread.sleep(50));
+        g.requires(first).add("waiting", reactor -> Thread.sleep(10));
+
+        Reactor r = new Reactor(g);
+        TimingListener timings = new TimingListener(r);
+        // a single thread, so that one of the tasks after the first has to wait for the other
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            r.execute(es, timings);
+        } finally {
+            es.shutdown();
+        }
+
+        assertEquals(4, timings.getTimings().size());
+        assertEquals(4, timings.getRunTime().getCount());
+        List<TimingListener.Timing> slowest = timings.getSlowest(2);
+        assertEquals("slow", slowest.get(0).getTask().getDisplayName());
+        assertEquals("dynamic", slowest.get(1).getTask().getDisplayName());
+        assertTrue(timings.getRunTime().getMax().toMillis()>=50);
+        assertTrue(timings.getQueueWait().getMax().toMillis()>=10);
+
+        Duration attained = timings.getAttainmentTimes().get(slow);
+        assertNotNull(attained);
+        assertTrue(attained.compareTo(slowest.get(0).getCompletedAt())>=0);
+    }
+
+    public void testCriticalPath() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle a = g.add("a", reactor -> Thread.sleep(10));
+        Handle b = g.requires(a).add("b", reactor -> Thread.sleep(100));
+        Handle c = g.requires(a).add("c", reactor -> Thread.sleep(5));
+        Handle d = g.requires(b, c).add("d", reactor -> Thread.sleep(10));
+
+        Reactor r = new Reactor(g);
+        TimingListener timings = new TimingListener(r);
+        ExecutorService es = Executors.newCachedThreadPool();
+        try {
+            r.execute(es, timings);
+        } finally {
+            es.shutdown();
+        }
+
+        CriticalPathReport report = new CriticalPathReport(timings);
+        List<String> path = new ArrayList<>();
+        for (CriticalPathReport.Step s : report.getPath())
+            path.add(s.getTask().getDisplayName());
+        assertEquals(report.toString(), Arrays.asList("a", "b", "d"), path);
+        assertSame(b, report.getPath().get(2).getMilestone());
+        assertTrue(report.getTotal().toMillis()>=120);
+
+        assertEquals(Duration.ZERO, report.getSlack(a.asTask()));
+        assertEquals(Duration.ZERO, report.getSlack(b.asTask()));
+        assertEquals(Duration.ZERO, report.getSlack(d.asTask()));
+        assertTrue(report.getSlack().toString(), report.getSlack(c.asTask()).toMillis()>=50);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TraceListenerTest extends TestCase {
+    public void testTrace() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("first", Executable.NOOP);
+        g.followedBy().add("quote\"d", Executable.NOOP);
+        g.followedBy().notFatal().add("failing", reactor -> {
+            throw new Exception();
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try (TraceListener trace = new TraceListener(bytes)) {
+            new Reactor(g).execute(es, trace);
+        } finally {
+            es.shutdown();
+        }
+
+        String json = bytes.toString(StandardCharsets.UTF_8.name());
+        assertTrue(json, json.startsWith("{\"traceEvents\":["));
+        assertTrue(json, json.trim().endsWith("]}"));
+        assertEquals(json, 3, count(json, "\"ph\":\"B\""));
+        assertEquals(json, 3, count(json, "\"ph\":\"E\""));
+        assertEquals(json, 3, count(json, "\"ph\":\"i\""));
+        assertTrue(json, json.contains("\"name\":\"quote\\\"d\""));
+        assertTrue(json, json.contains("\"thread_name\""));
+        assertEquals(json, 1, count(json, "\"failed\":true"));
+    }
+
+    /**
+     * A task that the watchdog fails is reported from the watchdog's thread, but its slice still ends where it began.
+     */
+    public void testEndedFromAnotherThread() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.notFatal().add("stuck", reactor -> {
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // not giving up
+                }
+            }
+        });
+        Reactor r = new Reactor(g);
+        r.setWatchdog(new Watchdog(Duration.ofMillis(50)).onTimeout(Watchdog.Action.FAIL));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ExecutorService es = Executors.newCachedThreadPool();
+        try (TraceListener trace = new TraceListener(bytes)) {
+            r.execute(es, trace);
+        } finally {
+            release.countDown();
+            es.shutdown();
+        }
+
+        String json = bytes.toString(StandardCharsets.UTF_8.name());
+        assertEquals(json, 1, count(json, "\"failed\":true"));
+        assertEquals(json, tidOf(json, "B", "stuck"), tidOf(json, "E", "stuck"));
+    }
+
+    private static String tidOf(String json, String phase, String name) {
+        Matcher m = Pattern.compile("\"ph\":\""+phase+"\",\"pid\":1,\"tid\":(\\d+),[^\n]*\"name\":\""+name+"\"").matcher(json);
+        assertTrue(json, m.find());
+        return m.group(1);
+    }
+
+    private static int count(String s, String what) {
+        int n = 0;
+        for (int i=s.indexOf(what); i>=0; i=s.indexOf(what, i+1))
+            n++;
+        return n;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor;
+
+import junit.framework.TestCase;
+import org.jvnet.hudson.reactor.TaskGraphBuilder.Handle;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class WatchdogTest extends TestCase {
+    private ExecutorService es;
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final Logger logger = Logger.getLogger(Watchdog.class.getName());
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        es = Executors.newCachedThreadPool();
+        logger.addHandler(handler);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        logger.removeHandler(handler);
+        es.shutdownNow();
+    }
+
+    /**
+     * A slow task is reported with where it's stuck, and otherwise left alone.
+     */
+    public void testReport() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("slow", reactor -> Thread.sleep(300));
+        Reactor r = new Reactor(g);
+        r.setWatchdog(new Watchdog(Duration.ofMillis(50)));
+        r.execute(es);
+
+        assertEquals(1, records.size());
+        Throwable x = records.get(0).getThrown();
+        assertTrue(x instanceof TimeoutException);
+        assertTrue(x.getMessage(), x.getMessage().contains("slow"));
+        // Thread.sleep is implemented by a native sleep0 on newer JDKs
+        assertTrue(x.getStackTrace()[0].getMethodName().startsWith("sleep"));
+    }
+
+    public void testInterrupt() throws Exception {
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("hung", reactor -> new CountDownLatch(1).await());
+        Reactor r = new Reactor(g);
+        r.setWatchdog(new Watchdog(Duration.ofMillis(50)).onTimeout(Watchdog.Action.INTERRUPT));
+        try {
+            r.execute(es);
+            fail();
+        } catch (ReactorException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+
+    /**
+     * A task that ignores interrupts is failed without waiting for it, and the rest goes on.
+     */
+    public void testFail() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean ran = new AtomicBoolean();
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        Handle h = g.add("before", Executable.NOOP);
+        StubbornTask stubborn = new StubbornTask(h, release);
+        g.requires(stubborn.done).add("after", reactor -> ran.set(true));
+        Reactor r = new Reactor(g);
+        r.add(stubborn);
+        // only this task has a short timeout
+        r.setWatchdog(new Watchdog(Duration.ofHours(1)).onTimeout(Watchdog.Action.FAIL));
+
+        r.execute(es, new ReactorListener() {
+            @Override
+            public void onTaskCompleted(Task t) {
+                assertNotSame(stubborn, t);
+            }
+
+            @Override
+            public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+                assertSame(stubborn, t);
+                failures.add(err);
+            }
+        });
+        assertTrue(ran.get());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof TimeoutException);
+        release.countDown();
+    }
+
+    public void testDeadline() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        TaskGraphBuilder g = new TaskGraphBuilder();
+        g.add("hung", reactor -> release.await());
+        Reactor r = new Reactor(g);
+        r.setWatchdog(new Watchdog(Duration.ofHours(1)).withDeadline(Duration.ofMillis(200)));
+        long start = System.nanoTime();
+        try {
+            r.execute(es);
+            fail();
+        } catch (ReactorException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+        }
+        assertTrue(System.nanoTime()-start<Duration.ofSeconds(5).toNanos());
+    }
+
+    /**
+     * Keeps running through interrupts until released, with a short timeout of its own.
+     */
+    private static class StubbornTask implements Task, TimeLimited {
+        final Milestone prerequisite;
+        final Milestone done = new MilestoneImpl("stubborn");
+        final CountDownLatch release;
+
+        StubbornTask(Milestone prerequisite, CountDownLatch release) {
+            this.prerequisite = prerequisite;
+            this.release = release;
+        }
+
+        public Collection<? extends Milestone> requires() {
+            return Collections.singleton(prerequisite);
+        }
+
+        public Collection<? extends Milestone> attains() {
+            return Collections.singleton(done);
+        }
+
+        public String getDisplayName() {
+            return "stubborn";
+        }
+
+        public boolean failureIsFatal() {
+            return false;
+        }
+
+        public Duration getTimeout() {
+            return Duration.ofMillis(50);
+        }
+
+        public void run(Reactor reactor) {
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // not giving up
+                }
+            }
+        }
+    }
+}
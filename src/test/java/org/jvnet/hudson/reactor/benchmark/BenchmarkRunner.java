@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor.benchmark;
+
+import junit.framework.TestCase;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks in this package. Not picked up by the regular test run;
+ * use {@code mvn test -Pbenchmark}.
+ *
+ * <p>
+ * {@code -Dbenchmark.include=regexp} narrows down the benchmarks to run, and the report is written to
+ * {@code target/jmh-report.json}. {@code -Dbenchmark.param.name=a,b} overrides the values of a {@code @Param},
+ * and {@code -Dbenchmark.profiler=gc} adds a JMH profiler.
+ */
+public class BenchmarkRunner extends TestCase {
+    public void testBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName()+".*Benchmark"))
+                .forks(1)
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PARAM))
+                options.param(name.substring(PARAM.length()), System.getProperty(name).split(","));
+        }
+        String profiler = System.getProperty("benchmark.profiler");
+        if (profiler!=null)
+            options.addProfiler(profiler);
+        new Runner(options.build()).run();
+    }
+
+    private static final String PARAM = "benchmark.param.";
+}
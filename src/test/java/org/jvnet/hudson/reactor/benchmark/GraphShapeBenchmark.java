@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jvnet.hudson.reactor.benchmark;
+
+import org.jvnet.hudson.reactor.CostModel;
+import org.jvnet.hudson.reactor.Executable;
+import org.jvnet.hudson.reactor.Milestone;
+import org.jvnet.hudson.reactor.Reactor;
+import org.jvnet.hudson.reactor.ReactorPlan;
+import org.jvnet.hudson.reactor.TaskGraphBuilder;
+import org.jvnet.hudson.reactor.TaskGraphBuilder.Handle;
+import org.jvnet.hudson.reactor.WorkStealingExecutor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling overhead of {@link Reactor} on synthetic graphs of no-op tasks.
+ *
+ * <p>
+ * Each operation builds a {@link Reactor} from a prepared {@link TaskGraphBuilder} and executes it,
+ * so it covers {@code addAll} as well as the dispatching, while {@link #executePlan} only executes
+ * a {@link ReactorPlan} compiled up front. Besides graphs per second, the number of
+ * tasks per second is reported as a secondary result, which is what to compare across graph sizes.
+ * Run with {@code -Dbenchmark.profiler=gc} to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphShapeBenchmark {
+    public enum Shape {
+        /**
+         * One task that everything else requires.
+         */
+        FAN_OUT {
+            @Override
+            void build(TaskGraphBuilder g, int n) {
+                Handle root = g.add("root", Executable.NOOP);
+                for (int i=1; i<n; i++)
+                    g.requires(root).add("t"+i, Executable.NOOP);
+            }
+        },
+        /**
+         * Every task requires the one before it.
+         */
+        CHAIN {
+            @Override
+            void build(TaskGraphBuilder g, int n) {
+                g.add("t0", Executable.NOOP);
+                for (int i=1; i<n; i++)
+                    g.followedBy().add("t"+i, Executable.NOOP);
+            }
+        },
+        /**
+         * A chain of diamonds: one task forks into two, which join into the next one.
+         */
+        DIAMOND {
+            @Override
+            void build(TaskGraphBuilder g, int n) {
+                Handle top = g.add("t0", Executable.NOOP);
+                for (int i=1; i+2<n; i+=3) {
+                    Handle left = g.requires(top).add("t"+i, Executable.NOOP);
+                    Handle right = g.requires(top).add("t"+(i+1), Executable.NOOP);
+                    top = g.requires(left, right).add("t"+(i+2), Executable.NOOP);
+                }
+            }
+        },
+        /**
+         * Layers of 16 tasks, each of which requires a few random tasks from the layer before.
+         */
+        LAYERED {
+            @Override
+            void build(TaskGraphBuilder g, int n) {
+                Random r = new Random(n);
+                List<Handle> previous = new ArrayList<>();
+                List<Handle> layer = new ArrayList<>();
+                for (int i=0; i<n; i++) {
+                    if (layer.size()==WIDTH) {
+                        previous = layer;
+                        layer = new ArrayList<>();
+                    }
+                    for (int j=previous.isEmpty() ? 0 : 1+r.nextInt(4); j>0; j--)
+                        g.requires(previous.get(r.nextInt(previous.size())));
+                    layer.add(g.add("t"+i, Executable.NOOP));
+                }
+            }
+        },
+        /**
+         * Layers of 16 tasks connected through milestones rather than directly.
+         * There are half as many milestones as tasks, each attained by several tasks.
+         */
+        MILESTONES {
+            @Override
+            void build(TaskGraphBuilder g, int n) {
+                final int k = WIDTH/2;
+                Milestone[] previous = null, layer = null;
+                for (int i=0; i<n; i++) {
+                    int x = i%WIDTH;
+                    if (x==0) {
+                        previous = layer;
+                        layer = new Milestone[k];
+                        for (int j=0; j<k; j++)
+                            layer[j] = new Point(i/WIDTH+"/"+j);
+                    }
+                    if (previous!=null)
+                        g.requires(previous[x%k], previous[(x+3)%k]);
+                    g.attains(layer[x%k], layer[(x+1)%k]).add("t"+i, Executable.NOOP);
+                }
+            }
+        };
+
+        abstract void build(TaskGraphBuilder g, int n);
+
+        static final int WIDTH = 16;
+    }
+
+    private static final class Point implements Milestone {
+        private final String name;
+
+        Point(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * JMH reports these as a rate, next to the primary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long tasks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tasks = 0;
+        }
+    }
+
+    @Param({"FAN_OUT", "CHAIN", "DIAMOND", "LAYERED", "MILESTONES"})
+    public Shape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    /**
+     * {@code single} isolates the cost of the bookkeeping, {@code workStealing} adds contention on it.
+     */
+    @Param({"single", "workStealing"})
+    public String executor;
+
+    private TaskGraphBuilder graph;
+    private int size;
+    private ReactorPlan plan;
+    private ReactorPlan coalescedPlan;
+    private ExecutorService single;
+    private WorkStealingExecutor workStealing;
+
+    @Setup
+    public void setUp() throws Exception {
+        graph = new TaskGraphBuilder();
+        shape.build(graph, nodes);
+        plan = new Reactor(graph).compile();
+        Reactor coalesced = new Reactor(graph);
+        coalesced.coalesceCheapTasks(CostModel.UNIT, 1);
+        coalescedPlan = coalesced.compile();
+        size = plan.size();
+        if (executor.equals("single"))
+            single = Executors.newSingleThreadExecutor();
+        else
+            workStealing = new WorkStealingExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (single!=null)
+            single.shutdown();
+        if (workStealing!=null)
+            workStealing.shutdown();
+    }
+
+    @Benchmark
+    public Reactor execute(Counters counters) throws Exception {
+        Reactor r = new Reactor(graph);
+        r.execute(single!=null ? single : workStealing);
+        counters.tasks += size;
+        return r;
+    }
+
+    @Benchmark
+    public ReactorPlan executePlan(Counters counters) throws Exception {
+        plan.execute(single!=null ? single : workStealing);
+        counters.tasks += size;
+        return plan;
+    }
+
+    /**
+     * Every task is a no-op, so all of them are run in batches.
+     */
+    @Benchmark
+    public ReactorPlan executeCoalescedPlan(Counters counters) throws Exception {
+        coalescedPlan.execute(single!=null ? single : workStealing);
+        counters.tasks += size;
+        return coalescedPlan;
+    }
+}